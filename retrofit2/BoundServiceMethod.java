@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.lang.reflect.Method;
+import javax.annotation.Nullable;
+
+/**
+ * A service method bound to a {@link Retrofit} instance for use by generated service
+ * implementations. Obtain instances with {@link Retrofit#bindServiceMethod} once per method and
+ * call {@link #invoke} for each call.
+ *
+ * <p>Unlike the {@link java.lang.reflect.Proxy proxy} returned by {@link Retrofit#create}, invoking
+ * a bound method does no per-call reflection, default-method checks, or cache lookups once the
+ * method has been parsed.
+ */
+public final class BoundServiceMethod {
+  private final Retrofit retrofit;
+  private final Method method;
+  private volatile @Nullable ServiceMethod<?> serviceMethod;
+
+  BoundServiceMethod(Retrofit retrofit, Method method) {
+    this.retrofit = retrofit;
+    this.method = method;
+  }
+
+  /** The interface method which this instance invokes. */
+  public Method method() {
+    return method;
+  }
+
+  public @Nullable Object invoke(Object... args) {
+    ServiceMethod<?> serviceMethod = this.serviceMethod;
+    if (serviceMethod == null) {
+      // Parsing is idempotent and cached by Retrofit so racing threads agree on the same instance.
+      serviceMethod = retrofit.loadServiceMethod(method);
+      this.serviceMethod = serviceMethod;
+    }
+    return serviceMethod.invoke(retrofit.endpoint, args);
+  }
+
+  @Override
+  public String toString() {
+    return method.getDeclaringClass().getName() + "." + method.getName();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+/** An immutable snapshot of the response bodies Retrofit has read fully before returning them. */
+public final class BufferStats {
+  private final long bytesInMemory;
+  private final long bytesBuffered;
+  private final long bytesSpilled;
+  private final long spillCount;
+
+  BufferStats(long bytesInMemory, long bytesBuffered, long bytesSpilled, long spillCount) {
+    this.bytesInMemory = bytesInMemory;
+    this.bytesBuffered = bytesBuffered;
+    this.bytesSpilled = bytesSpilled;
+    this.spillCount = spillCount;
+  }
+
+  /** The bytes of buffered bodies currently held in memory, which counts against the budget. */
+  public long bytesInMemory() {
+    return bytesInMemory;
+  }
+
+  /** The total bytes of all bodies buffered in memory. */
+  public long bytesBuffered() {
+    return bytesBuffered;
+  }
+
+  /** The total bytes of all bodies written to temporary files. */
+  public long bytesSpilled() {
+    return bytesSpilled;
+  }
+
+  /** The number of bodies written to temporary files. */
+  public long spillCount() {
+    return spillCount;
+  }
+
+  @Override
+  public String toString() {
+    return "BufferStats{bytesInMemory="
+        + bytesInMemory
+        + ", bytesBuffered="
+        + bytesBuffered
+        + ", bytesSpilled="
+        + bytesSpilled
+        + ", spillCount="
+        + spillCount
+        + "}";
+  }
+}
@@ -18,16 +18,26 @@ package com.ownbranch.retrofit2;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import javax.annotation.Nullable;
 import kotlin.Unit;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import retrofit2.Converter;
 import retrofit2.Retrofit;
 import retrofit2.Utils;
 import retrofit2.http.Streaming;
 
 final class BuiltInConverters extends retrofit2.Converter.Factory {
+  /** Handles {@code Stream}, {@code Iterator} and {@code Flow.Publisher}, if available. */
+  private final @Nullable retrofit2.Converter.Factory recordStreams;
+
+  BuiltInConverters(@Nullable retrofit2.Converter.Factory recordStreams) {
+    this.recordStreams = recordStreams;
+  }
 
   @Override
   public @Nullable
@@ -36,7 +46,7 @@ final class BuiltInConverters extends retrofit2.Converter.Factory {
     if (type == ResponseBody.class) {
       return retrofit2.Utils.isAnnotationPresent(annotations, Streaming.class)
           ? StreamingResponseBodyConverter.INSTANCE
-          : BufferingResponseBodyConverter.INSTANCE;
+          : new BufferingResponseBodyConverter(retrofit.responseBuffering);
     }
     if (type == Void.class) {
       return VoidResponseBodyConverter.INSTANCE;
@@ -44,6 +54,9 @@ final class BuiltInConverters extends retrofit2.Converter.Factory {
     if (retrofit2.Utils.isUnit(type)) {
       return UnitResponseBodyConverter.INSTANCE;
     }
+    if (recordStreams != null) {
+      return recordStreams.responseBodyConverter(type, annotations, retrofit);
+    }
     return null;
   }
 
@@ -54,9 +67,25 @@ final class BuiltInConverters extends retrofit2.Converter.Factory {
       Annotation[] parameterAnnotations,
       Annotation[] methodAnnotations,
       Retrofit retrofit) {
-    if (RequestBody.class.isAssignableFrom(retrofit2.Utils.getRawType(type))) {
+    Class<?> rawType = retrofit2.Utils.getRawType(type);
+    if (RequestBody.class.isAssignableFrom(rawType)) {
       return RequestBodyConverter.INSTANCE;
     }
+    // File-backed types are claimed here, ahead of user factories, which therefore never see them.
+    // This is documented on Retrofit.Builder.addConverterFactory.
+    if (rawType == FileSlice.class) {
+      return FileSliceConverter.INSTANCE;
+    }
+    if (FileChannel.class.isAssignableFrom(rawType)) {
+      return FileChannelConverter.INSTANCE;
+    }
+    if (MappedByteBuffer.class.isAssignableFrom(rawType)) {
+      return MappedByteBufferConverter.INSTANCE;
+    }
+    // Compared by name so that older Android versions never load java.nio.file.Path.
+    if (rawType.getName().equals("java.nio.file.Path")) {
+      return PathConverter.INSTANCE;
+    }
     return null;
   }
 
@@ -89,6 +118,45 @@ final class BuiltInConverters extends retrofit2.Converter.Factory {
     }
   }
 
+  static final class FileSliceConverter implements retrofit2.Converter<FileSlice, RequestBody> {
+    static final FileSliceConverter INSTANCE = new FileSliceConverter();
+
+    @Override
+    public RequestBody convert(FileSlice value) {
+      return FileRequestBody.create(value);
+    }
+  }
+
+  static final class FileChannelConverter
+      implements retrofit2.Converter<FileChannel, RequestBody> {
+    static final FileChannelConverter INSTANCE = new FileChannelConverter();
+
+    @Override
+    public RequestBody convert(FileChannel value) throws IOException {
+      return FileRequestBody.create(value);
+    }
+  }
+
+  static final class MappedByteBufferConverter
+      implements retrofit2.Converter<MappedByteBuffer, RequestBody> {
+    static final MappedByteBufferConverter INSTANCE = new MappedByteBufferConverter();
+
+    @Override
+    public RequestBody convert(MappedByteBuffer value) {
+      return FileRequestBody.create(value);
+    }
+  }
+
+  @IgnoreJRERequirement // Only returned for java.nio.file.Path parameters.
+  static final class PathConverter implements retrofit2.Converter<Path, RequestBody> {
+    static final PathConverter INSTANCE = new PathConverter();
+
+    @Override
+    public RequestBody convert(Path value) throws IOException {
+      return FileRequestBody.create(value);
+    }
+  }
+
   static final class StreamingResponseBodyConverter
       implements retrofit2.Converter<ResponseBody, ResponseBody> {
     static final StreamingResponseBodyConverter INSTANCE = new StreamingResponseBodyConverter();
@@ -101,13 +169,17 @@ final class BuiltInConverters extends retrofit2.Converter.Factory {
 
   static final class BufferingResponseBodyConverter
       implements retrofit2.Converter<ResponseBody, ResponseBody> {
-    static final BufferingResponseBodyConverter INSTANCE = new BufferingResponseBodyConverter();
+    private final ResponseBuffering buffering;
+
+    BufferingResponseBodyConverter(ResponseBuffering buffering) {
+      this.buffering = buffering;
+    }
 
     @Override
     public ResponseBody convert(ResponseBody value) throws IOException {
       try {
         // Buffer the entire body to avoid future I/O.
-        return retrofit2.Utils.buffer(value);
+        return buffering.buffer(value);
       } finally {
         value.close();
       }
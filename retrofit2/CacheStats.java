@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+/** An immutable snapshot of the hit and miss counts of one of Retrofit's internal caches. */
+public final class CacheStats {
+  private final long hitCount;
+  private final long missCount;
+
+  CacheStats(long hitCount, long missCount) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+  }
+
+  /** The number of lookups which were answered by the cache. */
+  public long hitCount() {
+    return hitCount;
+  }
+
+  /** The number of lookups which had to compute their result. */
+  public long missCount() {
+    return missCount;
+  }
+
+  /** The total number of lookups. */
+  public long requestCount() {
+    return hitCount + missCount;
+  }
+
+  /** The ratio of hits to lookups, or 1.0 if there have been no lookups. */
+  public double hitRate() {
+    long requestCount = requestCount();
+    return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + "}";
+  }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import static retrofit2.Utils.throwIfFatal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.ByteString;
+import okio.Timeout;
+
+/**
+ * Lets concurrent, identical {@code GET} calls share one network exchange and one converted body.
+ *
+ * <p>Calls are identical when they belong to service methods with the same response converter and
+ * call factory, and their requests have the same method, URL and values for each of {@link
+ * #keyHeaders}. The call factory is part of the key because instances from {@link
+ * Retrofit#newBuilder()} share this coalescer but may use a different client or credentials.
+ *
+ * <p>The first such call to run performs the exchange. Calls which start while it is in flight
+ * wait for, and receive, its result. A waiting call can be canceled, and gives up once its own
+ * timeout elapses. Once the exchange completes, the next identical call starts a new one.
+ *
+ * <p>Enqueued calls receive their results on the {@link OkHttpClient}'s dispatcher, so a caller's
+ * callback never runs on, or holds up, the thread of the call which made the exchange. With any
+ * other {@link okhttp3.Call.Factory} they are delivered on the completing thread.
+ *
+ * <p>Successful responses share a single converted body, which callers must not mutate. An error
+ * body already buffered in memory is copied for each caller. Any other error body, which is lazy,
+ * discarded or spilled to a file according to the {@link ErrorBodyMode}, is not read here: the call
+ * which made the exchange receives it as is, and the calls which joined it receive an empty body.
+ */
+final class CallCoalescer {
+  final List<String> keyHeaders;
+  private final ConcurrentHashMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+  CallCoalescer(List<String> keyHeaders) {
+    this.keyHeaders = keyHeaders;
+  }
+
+  <T> Call<T> coalesce(Call<T> call, Object owner, okhttp3.Call.Factory callFactory) {
+    return new CoalescedCall<>(call, this, owner, callFactory);
+  }
+
+  /** Returns the executor which delivers results to calls enqueued with {@code callFactory}. */
+  private static Executor executor(okhttp3.Call.Factory callFactory) {
+    if (callFactory instanceof OkHttpClient) {
+      return ((OkHttpClient) callFactory).dispatcher().executorService();
+    }
+    return Runnable::run;
+  }
+
+  private Key key(Object owner, okhttp3.Call.Factory callFactory, Request request) {
+    String[] headerValues = new String[keyHeaders.size()];
+    for (int i = 0; i < headerValues.length; i++) {
+      headerValues[i] = request.header(keyHeaders.get(i));
+    }
+    return new Key(owner, callFactory, request.method(), request.url().toString(), headerValues);
+  }
+
+  private static final class Key {
+    private final Object owner;
+    private final okhttp3.Call.Factory callFactory;
+    private final String method;
+    private final String url;
+    private final String[] headerValues;
+    private final int hashCode;
+
+    Key(
+        Object owner,
+        okhttp3.Call.Factory callFactory,
+        String method,
+        String url,
+        String[] headerValues) {
+      this.owner = owner;
+      this.callFactory = callFactory;
+      this.method = method;
+      this.url = url;
+      this.headerValues = headerValues;
+      int hashCode = 31 * System.identityHashCode(owner) + System.identityHashCode(callFactory);
+      hashCode = 31 * (31 * hashCode + method.hashCode()) + url.hashCode();
+      this.hashCode = 31 * hashCode + Arrays.hashCode(headerValues);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) return false;
+      Key that = (Key) other;
+      return owner == that.owner
+          && callFactory == that.callFactory
+          && hashCode == that.hashCode
+          && method.equals(that.method)
+          && url.equals(that.url)
+          && Arrays.equals(headerValues, that.headerValues);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  interface Listener {
+    void onComplete(Flight flight);
+  }
+
+  /** The shared outcome of one network exchange. */
+  static final class Flight {
+    private final Executor executor;
+
+    @GuardedBy("this")
+    private boolean done;
+
+    @GuardedBy("this")
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private @Nullable Response<?> response;
+    private @Nullable Throwable failure;
+    private @Nullable MediaType errorContentType;
+    private @Nullable ByteString errorBytes;
+    /** Set once an unbuffered error body has been given to the leader, or closed. */
+    private final AtomicBoolean errorBodyClaimed = new AtomicBoolean();
+
+    Flight(Executor executor) {
+      this.executor = executor;
+    }
+
+    void complete(@Nullable Response<?> response, @Nullable Throwable failure) {
+      if (response != null && !response.isSuccessful()) {
+        ResponseBody errorBody = response.errorBody();
+        errorContentType = errorBody != null ? errorBody.contentType() : null;
+        if (errorBody instanceof ResponseBuffering.MemoryBody) {
+          try {
+            errorBytes = errorBody.source().readByteString(); // Already in memory.
+          } catch (IOException e) {
+            response = null;
+            failure = e;
+          } finally {
+            errorBody.close();
+          }
+        }
+      }
+
+      List<Listener> listeners;
+      synchronized (this) {
+        this.response = response;
+        this.failure = failure;
+        done = true;
+        notifyAll();
+        listeners = new ArrayList<>(this.listeners);
+        this.listeners.clear();
+      }
+      for (Listener listener : listeners) {
+        deliver(listener);
+      }
+    }
+
+    /** Calls {@code listener} once complete. This is dispatched at once if already complete. */
+    void listen(Listener listener) {
+      synchronized (this) {
+        if (!done) {
+          listeners.add(listener);
+          return;
+        }
+      }
+      deliver(listener);
+    }
+
+    /** Calls {@code listener} on the executor rather than on the current thread. */
+    void deliver(Listener listener) {
+      try {
+        executor.execute(() -> listener.onComplete(this));
+      } catch (RejectedExecutionException e) {
+        listener.onComplete(this); // The dispatcher was shut down. Deliver the result anyway.
+      }
+    }
+
+    /** Removes a listener which has not been called. Returns false if it has been, or will be. */
+    synchronized boolean unlisten(Listener listener) {
+      return listeners.remove(listener);
+    }
+
+    /**
+     * Waits for completion, or until {@code call} is canceled or its {@code timeout} elapses. The
+     * timeout is that of the waiting call, not of the exchange it waits for.
+     */
+    synchronized void await(CoalescedCall<?> call, Timeout timeout) throws IOException {
+      long start = System.nanoTime();
+      long waitNanos = timeout.timeoutNanos() != 0L ? timeout.timeoutNanos() : Long.MAX_VALUE;
+      if (timeout.hasDeadline()) {
+        waitNanos = Math.min(waitNanos, timeout.deadlineNanoTime() - start);
+      }
+      while (!done) {
+        if (call.canceled) {
+          throw new IOException("Canceled");
+        }
+        try {
+          if (waitNanos == Long.MAX_VALUE) {
+            wait();
+          } else {
+            long remainingNanos = waitNanos - (System.nanoTime() - start);
+            if (remainingNanos <= 0L) {
+              throw new InterruptedIOException("timeout");
+            }
+            long millis = remainingNanos / 1_000_000L;
+            wait(millis, (int) (remainingNanos - millis * 1_000_000L));
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+      }
+    }
+
+    /** Closes an unbuffered error body which the leader will not receive after all. */
+    void discard() {
+      Response<?> response;
+      synchronized (this) {
+        response = this.response;
+      }
+      if (response != null && errorBytes == null && errorBodyClaimed.compareAndSet(false, true)) {
+        ResponseBody errorBody = response.errorBody();
+        if (errorBody != null) {
+          errorBody.close();
+        }
+      }
+    }
+
+    /** Wakes waiting threads so they notice a cancelation. */
+    synchronized void wake() {
+      notifyAll();
+    }
+
+    /**
+     * Returns this flight's response for one caller, or throws its failure. Only the {@code
+     * leader}, which made the exchange, receives an unbuffered error body.
+     */
+    <T> Response<T> result(boolean leader) throws IOException {
+      Throwable failure;
+      Response<?> response;
+      synchronized (this) {
+        failure = this.failure;
+        response = this.response;
+      }
+      if (failure != null) {
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        throw new IOException(failure);
+      }
+      //noinspection ConstantConditions Either response or failure is set.
+      if (errorBytes != null) {
+        return Response.error(ResponseBody.create(errorContentType, errorBytes), response.raw());
+      }
+      if (!response.isSuccessful() && (!leader || !errorBodyClaimed.compareAndSet(false, true))) {
+        ResponseBody empty = ResponseBody.create(errorContentType, ByteString.EMPTY);
+        return Response.error(empty, response.raw());
+      }
+      //noinspection unchecked Flights are keyed by response converter, so T always matches.
+      return (Response<T>) response;
+    }
+  }
+
+  static final class CoalescedCall<T> implements Call<T> {
+    private final Call<T> delegate;
+    private final CallCoalescer coalescer;
+    private final Object owner;
+    private final okhttp3.Call.Factory callFactory;
+    volatile boolean canceled;
+
+    @GuardedBy("this")
+    private boolean executed;
+
+    @GuardedBy("this")
+    private @Nullable Flight flight;
+
+    /** Delivers the result of {@link #enqueue}, or its cancelation. */
+    @GuardedBy("this")
+    private @Nullable Listener listener;
+
+    CoalescedCall(
+        Call<T> delegate, CallCoalescer coalescer, Object owner, okhttp3.Call.Factory callFactory) {
+      this.delegate = delegate;
+      this.coalescer = coalescer;
+      this.owner = owner;
+      this.callFactory = callFactory;
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+      synchronized (this) {
+        if (executed) throw new IllegalStateException("Already executed.");
+        executed = true;
+      }
+      if (canceled) {
+        throw new IOException("Canceled");
+      }
+
+      Key key = coalescer.key(owner, callFactory, delegate.request());
+      Flight flight = new Flight(executor(callFactory));
+      Flight existing = coalescer.inFlight.putIfAbsent(key, flight);
+      if (existing != null) {
+        flight = existing;
+      }
+      synchronized (this) {
+        this.flight = flight;
+      }
+
+      if (existing == null) {
+        Response<T> response = null;
+        Throwable failure = null;
+        try {
+          response = delegate.execute();
+        } catch (Throwable t) {
+          failure = t;
+        } finally {
+          coalescer.inFlight.remove(key, flight);
+        }
+        flight.complete(response, failure);
+      } else {
+        flight.await(this, delegate.timeout());
+        if (canceled) {
+          throw new IOException("Canceled");
+        }
+      }
+      return flight.result(existing == null);
+    }
+
+    @Override
+    public void enqueue(final Callback<T> callback) {
+      Objects.requireNonNull(callback, "callback == null");
+      synchronized (this) {
+        if (executed) throw new IllegalStateException("Already executed.");
+        executed = true;
+      }
+
+      final Key key;
+      try {
+        key = coalescer.key(owner, callFactory, delegate.request());
+      } catch (Throwable t) {
+        throwIfFatal(t);
+        callback.onFailure(this, t);
+        return;
+      }
+      final Flight flight = new Flight(executor(callFactory));
+      Flight existing = coalescer.inFlight.putIfAbsent(key, flight);
+      Flight joined = existing != null ? existing : flight;
+      boolean leader = existing == null;
+      Listener listener =
+          completed -> {
+            try {
+              if (canceled) {
+                if (leader) {
+                  completed.discard();
+                }
+                callback.onFailure(CoalescedCall.this, new IOException("Canceled"));
+                return;
+              }
+              Response<T> response;
+              try {
+                response = completed.result(leader);
+              } catch (Throwable t) {
+                throwIfFatal(t);
+                callback.onFailure(CoalescedCall.this, t);
+                return;
+              }
+              callback.onResponse(CoalescedCall.this, response);
+            } catch (Throwable t) {
+              throwIfFatal(t);
+              // Don't let one caller's callback keep the others sharing this flight from theirs.
+              Thread thread = Thread.currentThread();
+              thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            }
+          };
+      synchronized (this) {
+        this.flight = joined;
+        this.listener = listener;
+      }
+
+      joined.listen(listener);
+      if (canceled && joined.unlisten(listener)) {
+        joined.deliver(listener); // Canceled before listening, so cancel() could not do this.
+      }
+
+      if (existing == null) {
+        delegate.enqueue(
+            new Callback<T>() {
+              @Override
+              public void onResponse(Call<T> call, Response<T> response) {
+                coalescer.inFlight.remove(key, flight);
+                flight.complete(response, null);
+                if (canceled) {
+                  // This call's listener may have been removed, so nothing else would close an
+                  // unbuffered error body. Does nothing if the listener already took it.
+                  flight.discard();
+                }
+              }
+
+              @Override
+              public void onFailure(Call<T> call, Throwable t) {
+                coalescer.inFlight.remove(key, flight);
+                flight.complete(null, t);
+              }
+            });
+      }
+    }
+
+    @Override
+    public synchronized boolean isExecuted() {
+      return executed;
+    }
+
+    /**
+     * Cancels this call. A call waiting on another's exchange fails with a cancelation right away,
+     * without affecting it. The exchange itself is only canceled if this call started it, in which
+     * case every call sharing it fails.
+     */
+    @Override
+    public void cancel() {
+      canceled = true;
+      Flight flight;
+      Listener listener;
+      synchronized (this) {
+        flight = this.flight;
+        listener = this.listener;
+      }
+      delegate.cancel(); // Has no effect unless this call started the exchange.
+      if (flight != null) {
+        flight.wake();
+        if (listener != null && flight.unlisten(listener)) {
+          flight.deliver(listener); // Reports the cancelation now rather than on completion.
+        }
+      }
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return canceled || delegate.isCanceled();
+    }
+
+    @SuppressWarnings("CloneDoesntCallSuperClone") // Performing deep clone.
+    @Override
+    public Call<T> clone() {
+      return new CoalescedCall<>(delegate.clone(), coalescer, owner, callFactory);
+    }
+
+    @Override
+    public Request request() {
+      return delegate.request();
+    }
+
+    @Override
+    public Timeout timeout() {
+      return delegate.timeout();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * A value computed once per class, which does not keep the class or its class loader reachable.
+ *
+ * <p>Where the platform has {@code java.lang.ClassValue} the value is stored with the class itself.
+ * Otherwise, as on Android before API 34, values are held in a weak-keyed map. They are held weakly
+ * there too, since they usually refer back to their class, so a value may be computed again once it
+ * has been garbage collected.
+ */
+abstract class ClassCache<T> {
+  private static final boolean HAS_CLASS_VALUE = hasClassValue();
+
+  /** A {@link Values} if available. Typed as Object so older platforms never load it. */
+  private final @Nullable Object classValue;
+
+  @GuardedBy("this")
+  private final Map<Class<?>, WeakReference<T>> weakValues = new WeakHashMap<>();
+
+  ClassCache() {
+    classValue = HAS_CLASS_VALUE ? new Values<>(this) : null;
+  }
+
+  /** Computes the value for {@code type}. This may be called more than once for the same class. */
+  abstract T compute(Class<?> type);
+
+  final T get(Class<?> type) {
+    Object classValue = this.classValue;
+    if (classValue != null) {
+      @SuppressWarnings("unchecked") // Created with this cache's type in the constructor.
+      Values<T> values = (Values<T>) classValue;
+      return values.get(type);
+    }
+    synchronized (this) {
+      WeakReference<T> reference = weakValues.get(type);
+      T value = reference != null ? reference.get() : null;
+      if (value != null) {
+        return value;
+      }
+    }
+    T value = compute(type); // Outside the lock, as it may be slow or reentrant.
+    synchronized (this) {
+      weakValues.put(type, new WeakReference<>(value));
+    }
+    return value;
+  }
+
+  private static boolean hasClassValue() {
+    try {
+      Class.forName("java.lang.ClassValue");
+      return true;
+    } catch (ClassNotFoundException ignored) {
+      return false;
+    }
+  }
+
+  @IgnoreJRERequirement // Only created when java.lang.ClassValue is available.
+  private static final class Values<T> extends ClassValue<T> {
+    private final ClassCache<T> cache;
+
+    Values(ClassCache<T> cache) {
+      this.cache = cache;
+    }
+
+    @Override
+    protected T computeValue(Class<?> type) {
+      return cache.compute(type);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.UndeclaredThrowableException;
+import javax.annotation.Nullable;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * The parameter handlers of one service method composed into a single {@link MethodHandle}.
+ *
+ * <p>Looping over a {@code ParameterHandler<?>[]} makes every {@code apply} call site megamorphic
+ * across all service methods. Each instance of this class instead holds a method handle tree which
+ * calls exactly the handlers of its method in order. The JVM customizes frequently-invoked handles
+ * into dedicated bytecode, so the whole request-building path of a hot method can be inlined.
+ */
+@IgnoreJRERequirement // Only used when Platform.supportsMethodHandles() is true.
+final class CompiledParameterHandlers {
+  private static final MethodHandle APPLY;
+  private static final MethodHandle ELEMENT;
+  private static final MethodHandle NO_OP;
+
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      APPLY =
+          lookup.findVirtual(
+              ParameterHandler.class,
+              "apply",
+              methodType(void.class, RequestBuilder.class, Object.class));
+      NO_OP =
+          lookup.findStatic(
+              CompiledParameterHandlers.class,
+              "noOp",
+              methodType(void.class, RequestBuilder.class, Object[].class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+    ELEMENT = MethodHandles.arrayElementGetter(Object[].class);
+  }
+
+  /**
+   * Returns the composition of the first {@code count} entries of {@code handlers}, or null if
+   * method handles are unavailable on this platform.
+   */
+  static @Nullable CompiledParameterHandlers compile(ParameterHandler<?>[] handlers, int count) {
+    if (!Platform.get().supportsMethodHandles()) {
+      return null;
+    }
+    return new CompiledParameterHandlers(handlers, count);
+  }
+
+  // Type: (RequestBuilder, Object[])void
+  private final MethodHandle handle;
+
+  private CompiledParameterHandlers(ParameterHandler<?>[] handlers, int count) {
+    MethodHandle handle = NO_OP;
+    // Fold from the last handler backwards so that handler 0 runs first.
+    for (int p = count - 1; p >= 0; p--) {
+      // (RequestBuilder, Object)void bound to this parameter's handler.
+      MethodHandle apply = APPLY.bindTo(handlers[p]);
+      // (RequestBuilder, Object[])void reading args[p].
+      MethodHandle element = MethodHandles.insertArguments(ELEMENT, 1, p);
+      MethodHandle applyArg = MethodHandles.filterArguments(apply, 1, element);
+      handle = MethodHandles.foldArguments(handle, applyArg);
+    }
+    this.handle = handle;
+  }
+
+  void apply(RequestBuilder builder, Object[] args) throws IOException {
+    try {
+      handle.invokeExact(builder, args);
+    } catch (IOException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new UndeclaredThrowableException(t); // Handlers only declare IOException.
+    }
+  }
+
+  @SuppressWarnings("unused") // Invoked reflectively as the end of every handle chain.
+  private static void noOp(RequestBuilder builder, Object[] args) {}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import okhttp3.HttpUrl;
+
+/**
+ * The base URL of one {@link Retrofit} instance, with the static URLs and requests of its methods
+ * resolved against it.
+ *
+ * <p>Parsed methods are shared by instances from {@link Retrofit#newBuilder()} which differ only in
+ * their base URL, so what depends on the base URL is kept here rather than on the method. Each
+ * instance holds at most one entry per method.
+ */
+final class Endpoint {
+  final HttpUrl baseUrl;
+  final ConcurrentHashMap<RequestFactory, RequestFactory.ResolvedUrl> resolvedUrls =
+      new ConcurrentHashMap<>();
+
+  Endpoint(HttpUrl baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+}
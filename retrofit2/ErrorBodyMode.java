@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+/**
+ * How the body of a response with a non-2xx status is handed to {@link Response#errorBody()}.
+ *
+ * @see Retrofit.Builder#errorBodyMode
+ * @see Retrofit.Builder#maxErrorBodySize
+ */
+public enum ErrorBodyMode {
+  /**
+   * Read the error body into memory, or spill it to disk, before the call completes. It needs no
+   * further I/O and does not need to be closed. This is the default.
+   */
+  BUFFER,
+  /**
+   * Return the error body without reading it, leaving the connection open until the caller reads
+   * it to the end or closes it. The caller must close every error body.
+   */
+  LAZY,
+  /** Close the error body unread. {@link Response#errorBody()} is empty. */
+  DISCARD
+}
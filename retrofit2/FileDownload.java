@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ByteString;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import retrofit2.Converter;
+
+/**
+ * Writes response bodies to the file given by a {@link
+ * com.ownbranch.retrofit2.http.SaveTo @SaveTo} parameter, for methods returning {@code Call<Path>}.
+ *
+ * <p>The body is written to the file with {@link FileChannel#transferFrom} in large chunks, so no
+ * more than one chunk is held in memory at a time. This is still an ordinary copy: bytes pass
+ * through okio's heap segments and the channel's temporary buffer on the way. When the size is
+ * known the file is extended to it up front. Once complete, the size is checked against {@code
+ * Content-Length} or {@code Content-Range}, and the file is checked against a {@code Repr-Digest}
+ * or {@code Digest} response header if the server sent one.
+ *
+ * <p>While a download is incomplete, the response's strong {@code ETag}, or else its {@code
+ * Last-Modified} date, is kept in a {@linkplain #validatorFile sibling file}. If both files exist,
+ * the request asks for the remaining bytes with a {@code Range} header, conditional on an {@code
+ * If-Range} header carrying that validator. A {@code 206} response is appended to the file. A
+ * {@code 200} response replaces it. A download which fails is truncated to the bytes actually
+ * received so it can be resumed.
+ *
+ * <p>The body is not read by a {@link Converter}, which would not see the response headers. {@link
+ * OkHttpCall} calls {@link #save} instead.
+ */
+@IgnoreJRERequirement // Only used for java.nio.file.Path return types.
+final class FileDownload implements Converter<ResponseBody, Object> {
+  static final FileDownload INSTANCE = new FileDownload();
+
+  private static final long CHUNK_SIZE = 1024 * 1024;
+  private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+  /** The request tag which tells {@link #save} where to write. */
+  static final class Target {
+    final Path path;
+    /** The number of bytes requested to be skipped, or 0 for the whole body. */
+    final long resumeFrom;
+    /** True to keep a validator for resuming while the download is incomplete. */
+    final boolean resume;
+
+    Target(Path path, long resumeFrom, boolean resume) {
+      this.path = path;
+      this.resumeFrom = resumeFrom;
+      this.resume = resume;
+    }
+  }
+
+  /** Returns the file which holds the validator of an incomplete download to {@code path}. */
+  static Path validatorFile(Path path) {
+    return path.resolveSibling(path.getFileName() + ".validator");
+  }
+
+  /** Returns the validator of an incomplete download to {@code path}, or null if there is none. */
+  static @Nullable String readValidator(Path path) throws IOException {
+    try {
+      String validator = new String(Files.readAllBytes(validatorFile(path)), "UTF-8").trim();
+      return !validator.isEmpty() ? validator : null;
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the response's {@code If-Range} validator, or null if it has none. Only a strong
+   * {@code ETag}, or a {@code Last-Modified} date at least a second before the response's {@code
+   * Date}, may be used.
+   */
+  private static @Nullable String validator(okhttp3.Response rawResponse) {
+    String etag = rawResponse.header("ETag");
+    if (etag != null && !etag.startsWith("W/")) {
+      return etag;
+    }
+    Date lastModified = rawResponse.headers().getDate("Last-Modified");
+    Date date = rawResponse.headers().getDate("Date");
+    if (lastModified != null && date != null && date.getTime() - lastModified.getTime() >= 1000L) {
+      return rawResponse.header("Last-Modified");
+    }
+    return null;
+  }
+
+  @Override
+  public Object convert(ResponseBody value) {
+    value.close();
+    throw new IllegalStateException("Downloads are written by FileDownload.save.");
+  }
+
+  Path save(ResponseBody body, okhttp3.Response rawResponse) throws IOException {
+    try {
+      Target target = rawResponse.request().tag(Target.class);
+      if (target == null) {
+        throw new IllegalStateException("An interceptor removed the @SaveTo request tag.");
+      }
+
+      long offset = 0L;
+      long expectedSize = body.contentLength();
+      boolean complete = true; // False if this is only part of the whole representation.
+      if (rawResponse.code() == 206) {
+        String contentRange = rawResponse.header("Content-Range");
+        long[] range = parseContentRange(contentRange);
+        if (target.resumeFrom == 0L || range == null || range[0] != target.resumeFrom) {
+          throw new ProtocolException("Unexpected Content-Range: " + contentRange);
+        }
+        offset = range[0];
+        expectedSize = range[1] + 1L;
+        complete = range[2] == expectedSize;
+      } else if (target.resume) {
+        // A new representation. Keep its validator until it has been written in full.
+        String validator = validator(rawResponse);
+        if (validator != null) {
+          Files.write(validatorFile(target.path), validator.getBytes("UTF-8"));
+        } else {
+          Files.deleteIfExists(validatorFile(target.path));
+        }
+      }
+
+      long size = write(target.path, body.source(), offset, expectedSize);
+      if (complete) {
+        verifyDigest(target.path, rawResponse, size);
+        Files.deleteIfExists(validatorFile(target.path));
+      }
+      return target.path;
+    } finally {
+      body.close();
+    }
+  }
+
+  /** Writes {@code source} to {@code path} from {@code offset}, and returns the file's size. */
+  private static long write(Path path, BufferedSource source, long offset, long expectedSize)
+      throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      long existing = channel.size();
+      if (existing < offset) {
+        throw new IOException(
+            path + " shrank to " + existing + " bytes while resuming from byte " + offset);
+      }
+      channel.truncate(offset);
+
+      long position = offset;
+      boolean complete = false;
+      try {
+        if (expectedSize > offset) {
+          // Extend the file up front so the file system can allocate it in one piece.
+          channel.write(ByteBuffer.allocate(1), expectedSize - 1L);
+        }
+        while (true) {
+          long transferred = channel.transferFrom(source, position, CHUNK_SIZE);
+          if (transferred > 0L) {
+            position += transferred;
+            if (expectedSize != -1L && position > expectedSize) {
+              throw new ProtocolException(
+                  "Response body is longer than " + expectedSize + " bytes");
+            }
+          } else if (source.exhausted()) {
+            break;
+          }
+        }
+        if (expectedSize != -1L && position != expectedSize) {
+          throw new ProtocolException(
+              "Expected " + expectedSize + " bytes but received " + position);
+        }
+        complete = true;
+      } finally {
+        if (!complete) {
+          // Drop the preallocated tail, or any bytes past the expected end, so a retry resumes
+          // from the last byte which belongs to the body.
+          channel.truncate(expectedSize != -1L ? Math.min(position, expectedSize) : position);
+        }
+      }
+      return position;
+    }
+  }
+
+  /**
+   * Returns the first byte, last byte and total size of a {@code bytes} range, or null if it is
+   * malformed. The size is -1 if the server does not know it.
+   */
+  static @Nullable long[] parseContentRange(@Nullable String contentRange) {
+    if (contentRange == null || !contentRange.startsWith("bytes ")) return null;
+    int dash = contentRange.indexOf('-', 6);
+    int slash = contentRange.indexOf('/', dash + 1);
+    if (dash == -1 || slash == -1) return null;
+    try {
+      long first = Long.parseLong(contentRange.substring(6, dash).trim());
+      long last = Long.parseLong(contentRange.substring(dash + 1, slash).trim());
+      String total = contentRange.substring(slash + 1).trim();
+      long size = total.equals("*") ? -1L : Long.parseLong(total);
+      if (first < 0L || last < first) return null;
+      return new long[] {first, last, size};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /** Deletes the file and throws if it doesn't match the digest sent by the server. */
+  private static void verifyDigest(Path path, okhttp3.Response rawResponse, long size)
+      throws IOException {
+    String algorithm = null;
+    ByteString expected = null;
+    // RFC 9530 values look like "sha-256=:base64:", RFC 3230 values like "SHA-256=base64".
+    for (String header : new String[] {"Repr-Digest", "Digest"}) {
+      for (String value : rawResponse.headers(header)) {
+        for (String entry : value.split(",")) {
+          int equals = entry.indexOf('=');
+          if (equals == -1) continue;
+          String name = javaAlgorithm(entry.substring(0, equals).trim());
+          String encoded = entry.substring(equals + 1).trim();
+          if (encoded.length() >= 2 && encoded.startsWith(":") && encoded.endsWith(":")) {
+            encoded = encoded.substring(1, encoded.length() - 1);
+          }
+          ByteString decoded = ByteString.decodeBase64(encoded);
+          if (name != null && decoded != null) {
+            algorithm = name;
+            expected = decoded;
+            break;
+          }
+        }
+        if (expected != null) break;
+      }
+      if (expected != null) break;
+    }
+    if (algorithm == null) return;
+
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      return; // Nothing to check against.
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+      for (long position = 0L; position < size; ) {
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        if (read == -1) break;
+        position += read;
+        buffer.flip();
+        digest.update(buffer);
+      }
+    }
+    ByteString actual = ByteString.of(digest.digest());
+    if (!actual.equals(expected)) {
+      Files.deleteIfExists(path); // A resumed download would only build on the corruption.
+      Files.deleteIfExists(validatorFile(path));
+      throw new IOException(
+          "Downloaded "
+              + path
+              + " has "
+              + algorithm
+              + " digest "
+              + actual.base64()
+              + " but the server sent "
+              + expected.base64());
+    }
+  }
+
+  private static @Nullable String javaAlgorithm(String name) {
+    switch (name.toLowerCase(Locale.US)) {
+      case "sha-256":
+        return "SHA-256";
+      case "sha-512":
+        return "SHA-512";
+      case "md5":
+        return "MD5";
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * Request bodies backed by a file or a memory-mapped buffer. Each can be written any number of
+ * times, so calls using them may be retried or cloned.
+ *
+ * <p>File ranges are written with {@link FileChannel#transferTo} into the sink, which okio exposes
+ * as a {@link java.nio.channels.WritableByteChannel}. The JDK copies through a temporary buffer
+ * into okio's heap segments, so this is an ordinary buffered copy, just without stream wrappers.
+ * Buffers are written in bounded chunks so the sink emits segments as it goes rather than holding
+ * the whole buffer.
+ */
+abstract class FileRequestBody extends RequestBody {
+  private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  @IgnoreJRERequirement // Only called for java.nio.file.Path values.
+  static RequestBody create(Path path) throws IOException {
+    return new PathBody(path, 0L, java.nio.file.Files.size(path));
+  }
+
+  static RequestBody create(FileChannel channel) throws IOException {
+    return new ChannelBody(channel, 0L, channel.size());
+  }
+
+  @IgnoreJRERequirement // Only called for slices created from a java.nio.file.Path.
+  static RequestBody create(FileSlice slice) {
+    if (slice.channel != null) {
+      return new ChannelBody(slice.channel, slice.offset, slice.byteCount);
+    }
+    //noinspection ConstantConditions One of path or channel is always set.
+    return new PathBody((Path) slice.path, slice.offset, slice.byteCount);
+  }
+
+  /** Sends {@code buffer} from its current position to its limit. */
+  static RequestBody create(ByteBuffer buffer) {
+    return new BufferBody(buffer.duplicate());
+  }
+
+  final long offset;
+  final long byteCount;
+
+  FileRequestBody(long offset, long byteCount) {
+    this.offset = offset;
+    this.byteCount = byteCount;
+  }
+
+  @Override
+  public @Nullable MediaType contentType() {
+    return OCTET_STREAM;
+  }
+
+  @Override
+  public long contentLength() {
+    return byteCount;
+  }
+
+  static void transfer(FileChannel channel, long position, long byteCount, BufferedSink sink)
+      throws IOException {
+    while (byteCount > 0L) {
+      long transferred = channel.transferTo(position, byteCount, sink);
+      if (transferred <= 0L) {
+        throw new EOFException(
+            "File ended " + byteCount + " bytes before the expected content length");
+      }
+      position += transferred;
+      byteCount -= transferred;
+    }
+  }
+
+  @IgnoreJRERequirement // Only created for java.nio.file.Path values.
+  static final class PathBody extends FileRequestBody {
+    private final Path path;
+
+    PathBody(Path path, long offset, long byteCount) {
+      super(offset, byteCount);
+      this.path = path;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        transfer(channel, offset, byteCount, sink);
+      }
+    }
+  }
+
+  static final class ChannelBody extends FileRequestBody {
+    private final FileChannel channel;
+
+    ChannelBody(FileChannel channel, long offset, long byteCount) {
+      super(offset, byteCount);
+      this.channel = channel;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      // Positional transfers leave the channel's own position untouched.
+      transfer(channel, offset, byteCount, sink);
+    }
+  }
+
+  static final class BufferBody extends FileRequestBody {
+    private final ByteBuffer buffer;
+
+    BufferBody(ByteBuffer buffer) {
+      super(buffer.position(), buffer.remaining());
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      ByteBuffer source = buffer.duplicate();
+      int end = source.limit();
+      for (int position = (int) offset; position < end; ) {
+        int chunkEnd = Math.min(end, position + CHUNK_SIZE);
+        source.limit(chunkEnd).position(position);
+        while (source.hasRemaining()) {
+          sink.write(source);
+        }
+        position = chunkEnd;
+      }
+    }
+  }
+}
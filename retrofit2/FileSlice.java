@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+
+/**
+ * A byte range of a file for use as a {@link retrofit2.http.Body @Body} or {@link
+ * retrofit2.http.Part @Part} value. The range is sent with {@link FileChannel#transferTo} without
+ * reading the whole range into memory first.
+ *
+ * <pre><code>
+ * &#64;PUT("/artifacts/{id}")
+ * Call&lt;Void&gt; upload(@Path("id") String id, @Body FileSlice chunk);
+ * </code></pre>
+ *
+ * A {@link Path}, {@link FileChannel} or {@link java.nio.MappedByteBuffer} may also be used
+ * directly to send all of it.
+ */
+public final class FileSlice {
+  /** A slice of the file at {@code path}, which is opened each time the body is written. */
+  @IgnoreJRERequirement // Only usable where java.nio.file is available (Java 7+ / Android API 26+).
+  public static FileSlice of(Path path, long offset, long byteCount) {
+    Objects.requireNonNull(path, "path == null");
+    checkRange(offset, byteCount);
+    return new FileSlice(path, null, offset, byteCount);
+  }
+
+  /**
+   * A slice of {@code channel}. The channel's position is not used or changed, and the channel is
+   * not closed once the body is written.
+   */
+  public static FileSlice of(FileChannel channel, long offset, long byteCount) {
+    Objects.requireNonNull(channel, "channel == null");
+    checkRange(offset, byteCount);
+    return new FileSlice(null, channel, offset, byteCount);
+  }
+
+  private static void checkRange(long offset, long byteCount) {
+    if (offset < 0) throw new IllegalArgumentException("offset < 0: " + offset);
+    if (byteCount < 0) throw new IllegalArgumentException("byteCount < 0: " + byteCount);
+  }
+
+  final @Nullable Object path; // A java.nio.file.Path, typed as Object for older Android.
+  final @Nullable FileChannel channel;
+  final long offset;
+  final long byteCount;
+
+  private FileSlice(
+      @Nullable Object path, @Nullable FileChannel channel, long offset, long byteCount) {
+    this.path = path;
+    this.channel = channel;
+    this.offset = offset;
+    this.byteCount = byteCount;
+  }
+
+  public long offset() {
+    return offset;
+  }
+
+  public long byteCount() {
+    return byteCount;
+  }
+
+  @Override
+  public String toString() {
+    return "FileSlice{"
+        + (path != null ? path : channel)
+        + ", offset="
+        + offset
+        + ", byteCount="
+        + byteCount
+        + "}";
+  }
+}
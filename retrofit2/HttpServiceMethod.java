@@ -18,10 +18,12 @@ package com.ownbranch.retrofit2;
 import static retrofit2.Utils.getRawType;
 import static retrofit2.Utils.methodError;
 
+import com.ownbranch.retrofit2.http.StaleWhileRevalidate;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import kotlin.Unit;
 import kotlin.coroutines.Continuation;
@@ -72,7 +74,9 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
         // Determine if return type is nullable or not
       }
 
-      adapterType = new retrofit2.Utils.ParameterizedTypeImpl(null, retrofit2.Call.class, responseType);
+      adapterType =
+          retrofit2.Utils.canonicalize(
+              new retrofit2.Utils.ParameterizedTypeImpl(null, retrofit2.Call.class, responseType));
       annotations = SkipCallbackExecutorImpl.ensurePresent(annotations);
     } else {
       adapterType = method.getGenericReturnType();
@@ -98,14 +102,57 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
       throw methodError(method, "HEAD method must use Void or Unit as response type.");
     }
 
-    retrofit2.Converter<ResponseBody, ResponseT> responseConverter =
-        createResponseConverter(retrofit, method, responseType);
+    retrofit2.Converter<ResponseBody, ResponseT> responseConverter;
+    if (requestFactory.hasSaveTo) {
+      // Compared by name so that older Android versions never load java.nio.file.Path.
+      if (responseType != getRawType(responseType)
+          || !getRawType(responseType).getName().equals("java.nio.file.Path")) {
+        throw methodError(method, "@SaveTo requires a Path response type.");
+      }
+      // Only with @SaveTo, so converter factories which produce Path keep working without it.
+      @SuppressWarnings("unchecked") // ResponseT is Path.
+      retrofit2.Converter<ResponseBody, ResponseT> download =
+          (retrofit2.Converter<ResponseBody, ResponseT>) (Object) FileDownload.INSTANCE;
+      responseConverter = download;
+    } else {
+      responseConverter = createResponseConverter(retrofit, method, responseType);
+    }
 
     okhttp3.Call.Factory callFactory = retrofit.callFactory;
+    boolean shareable = requestFactory.httpMethod.equals("GET") && !isReadByCaller(responseType);
+    CallCoalescer coalescer = shareable ? retrofit.callCoalescer : null;
+    ResponseCache responseCache = shareable ? retrofit.responseCache : null;
+    long staleWhileRevalidateMillis = 0L;
+    StaleWhileRevalidate staleWhileRevalidate = method.getAnnotation(StaleWhileRevalidate.class);
+    if (staleWhileRevalidate != null) {
+      if (!requestFactory.httpMethod.equals("GET")) {
+        throw methodError(method, "@StaleWhileRevalidate can only be used with GET.");
+      }
+      if (isReadByCaller(responseType)) {
+        throw methodError(
+            method, "@StaleWhileRevalidate cannot be used with %s.", getRawType(responseType));
+      }
+      if (responseCache == null) {
+        throw methodError(
+            method, "@StaleWhileRevalidate requires a Retrofit.Builder.responseCache.");
+      }
+      if (staleWhileRevalidate.value() < 0L) {
+        throw methodError(method, "@StaleWhileRevalidate value must not be negative.");
+      }
+      staleWhileRevalidateMillis = TimeUnit.SECONDS.toMillis(staleWhileRevalidate.value());
+    }
     // 1.5
     // 其实就是这个最中adapted的实现
     if (!isKotlinSuspendFunction) {
-      return new CallAdapted<>(requestFactory, callFactory, responseConverter, callAdapter);
+      return new CallAdapted<>(
+          requestFactory,
+          callFactory,
+          responseConverter,
+          coalescer,
+          responseCache,
+          staleWhileRevalidateMillis,
+          retrofit.responseBuffering,
+          callAdapter);
     } else if (continuationWantsResponse) {
       //noinspection unchecked Kotlin compiler guarantees ReturnT to be Object.
       return (HttpServiceMethod<ResponseT, ReturnT>)
@@ -113,6 +160,10 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
               requestFactory,
               callFactory,
               responseConverter,
+              coalescer,
+              responseCache,
+              staleWhileRevalidateMillis,
+              retrofit.responseBuffering,
               (retrofit2.CallAdapter<ResponseT, retrofit2.Call<ResponseT>>) callAdapter);
     } else {
       //noinspection unchecked Kotlin compiler guarantees ReturnT to be Object.
@@ -121,12 +172,34 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
               requestFactory,
               callFactory,
               responseConverter,
+              coalescer,
+              responseCache,
+              staleWhileRevalidateMillis,
+              retrofit.responseBuffering,
               (retrofit2.CallAdapter<ResponseT, retrofit2.Call<ResponseT>>) callAdapter,
               continuationBodyNullable,
               continuationIsUnit);
     }
   }
 
+  /**
+   * True for body types which are tied to one call, either read as the caller consumes them or
+   * written to the caller's file, and so cannot be shared between calls. Types are compared by name
+   * so that older platforms never load them.
+   */
+  private static boolean isReadByCaller(Type responseType) {
+    if (responseType == ResponseBody.class) return true;
+    switch (getRawType(responseType).getName()) {
+      case "java.util.Iterator":
+      case "java.util.stream.Stream":
+      case "java.util.concurrent.Flow$Publisher":
+      case "java.nio.file.Path":
+        return true;
+      default:
+        return false;
+    }
+  }
+
   private static <ResponseT, ReturnT> retrofit2.CallAdapter<ResponseT, ReturnT> createCallAdapter(
           retrofit2.Retrofit retrofit, Method method, Type returnType, Annotation[] annotations) {
     try {
@@ -150,23 +223,49 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
   private final retrofit2.RequestFactory requestFactory;
   private final okhttp3.Call.Factory callFactory;
   private final retrofit2.Converter<ResponseBody, ResponseT> responseConverter;
+  private final @Nullable CallCoalescer coalescer;
+  private final @Nullable ResponseCache responseCache;
+  private final long staleWhileRevalidateMillis;
+  private final ResponseBuffering responseBuffering;
 
   HttpServiceMethod(
       retrofit2.RequestFactory requestFactory,
       okhttp3.Call.Factory callFactory,
-      retrofit2.Converter<ResponseBody, ResponseT> responseConverter) {
+      retrofit2.Converter<ResponseBody, ResponseT> responseConverter,
+      @Nullable CallCoalescer coalescer,
+      @Nullable ResponseCache responseCache,
+      long staleWhileRevalidateMillis,
+      ResponseBuffering responseBuffering) {
     this.requestFactory = requestFactory;
     this.callFactory = callFactory;
     this.responseConverter = responseConverter;
+    this.coalescer = coalescer;
+    this.responseCache = responseCache;
+    this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+    this.responseBuffering = responseBuffering;
   }
 
   @Override
-  final @Nullable ReturnT invoke(Object[] args) {
+  final @Nullable ReturnT invoke(Endpoint endpoint, Object[] args) {
     // 1.4
     // 看invoke的实现
     // adapt适配器，大致源码一般来说都不是核心，只是起到转换作用
     // 查看OkHttpCall源码，实现就是做okttp的网络请求
-    retrofit2.Call<ResponseT> call = new retrofit2.OkHttpCall<>(requestFactory, args, callFactory, responseConverter);
+    retrofit2.Call<ResponseT> call =
+        new retrofit2.OkHttpCall<>(
+            requestFactory,
+            endpoint,
+            args,
+            callFactory,
+            responseConverter,
+            responseCache,
+            staleWhileRevalidateMillis,
+            responseBuffering);
+    if (coalescer != null) {
+      // Keyed by converter so only calls producing the same body type share an exchange, and by
+      // call factory so only calls made with the same client and credentials do.
+      call = coalescer.coalesce(call, responseConverter, callFactory);
+    }
     // 观察HttpServiceMethod的adapt调用的具体实现
     return adapt(call, args);
   }
@@ -181,8 +280,19 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
         retrofit2.RequestFactory requestFactory,
         okhttp3.Call.Factory callFactory,
         retrofit2.Converter<ResponseBody, ResponseT> responseConverter,
+        @Nullable CallCoalescer coalescer,
+        @Nullable ResponseCache responseCache,
+        long staleWhileRevalidateMillis,
+        ResponseBuffering responseBuffering,
         retrofit2.CallAdapter<ResponseT, ReturnT> callAdapter) {
-      super(requestFactory, callFactory, responseConverter);
+      super(
+          requestFactory,
+          callFactory,
+          responseConverter,
+          coalescer,
+          responseCache,
+          staleWhileRevalidateMillis,
+          responseBuffering);
       this.callAdapter = callAdapter;
     }
 
@@ -200,8 +310,19 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
         retrofit2.RequestFactory requestFactory,
         okhttp3.Call.Factory callFactory,
         retrofit2.Converter<ResponseBody, ResponseT> responseConverter,
+        @Nullable CallCoalescer coalescer,
+        @Nullable ResponseCache responseCache,
+        long staleWhileRevalidateMillis,
+        ResponseBuffering responseBuffering,
         retrofit2.CallAdapter<ResponseT, retrofit2.Call<ResponseT>> callAdapter) {
-      super(requestFactory, callFactory, responseConverter);
+      super(
+          requestFactory,
+          callFactory,
+          responseConverter,
+          coalescer,
+          responseCache,
+          staleWhileRevalidateMillis,
+          responseBuffering);
       this.callAdapter = callAdapter;
     }
 
@@ -231,10 +352,21 @@ abstract class HttpServiceMethod<ResponseT, ReturnT> extends retrofit2.ServiceMe
         retrofit2.RequestFactory requestFactory,
         okhttp3.Call.Factory callFactory,
         Converter<ResponseBody, ResponseT> responseConverter,
+        @Nullable CallCoalescer coalescer,
+        @Nullable ResponseCache responseCache,
+        long staleWhileRevalidateMillis,
+        ResponseBuffering responseBuffering,
         CallAdapter<ResponseT, retrofit2.Call<ResponseT>> callAdapter,
         boolean isNullable,
         boolean isUnit) {
-      super(requestFactory, callFactory, responseConverter);
+      super(
+          requestFactory,
+          callFactory,
+          responseConverter,
+          coalescer,
+          responseCache,
+          staleWhileRevalidateMillis,
+          responseBuffering);
       this.callAdapter = callAdapter;
       this.isNullable = isNullable;
       this.isUnit = isUnit;
@@ -17,9 +17,11 @@ package com.ownbranch.retrofit2;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * A single invocation of a Retrofit service interface method. This class captures both the method
@@ -56,25 +58,48 @@ public final class Invocation {
   }
 
   private final Method method;
-  private final List<?> arguments;
+  private final @Nullable Object[] argumentArray;
+  private final int argumentCount;
+  private volatile @Nullable List<?> arguments;
 
   /** Trusted constructor assumes ownership of {@code arguments}. */
   Invocation(Method method, List<?> arguments) {
     this.method = method;
+    this.argumentArray = null;
+    this.argumentCount = arguments.size();
     this.arguments = Collections.unmodifiableList(arguments);
   }
 
+  /**
+   * Trusted constructor assumes ownership of the first {@code argumentCount} elements of {@code
+   * arguments}. They are wrapped in a list only if {@link #arguments()} is called.
+   */
+  Invocation(Method method, Object[] arguments, int argumentCount) {
+    this.method = method;
+    this.argumentArray = arguments;
+    this.argumentCount = argumentCount;
+  }
+
   public Method method() {
     return method;
   }
 
   public List<?> arguments() {
+    List<?> arguments = this.arguments;
+    if (arguments == null) {
+      //noinspection ConstantConditions Non-null when arguments was not set by the constructor.
+      List<Object> list = Arrays.asList(argumentArray);
+      arguments =
+          Collections.unmodifiableList(
+              argumentCount == list.size() ? list : list.subList(0, argumentCount));
+      this.arguments = arguments; // Racing threads create equal lists.
+    }
     return arguments;
   }
 
   @Override
   public String toString() {
     return String.format(
-        "%s.%s() %s", method.getDeclaringClass().getName(), method.getName(), arguments);
+        "%s.%s() %s", method.getDeclaringClass().getName(), method.getName(), arguments());
   }
 }
@@ -38,9 +38,13 @@ import retrofit2.Utils;
 // 具体实现retrofit的源码
 final class OkHttpCall<T> implements Call<T> {
   private final RequestFactory requestFactory;
+  private final Endpoint endpoint;
   private final Object[] args;
   private final okhttp3.Call.Factory callFactory;
   private final retrofit2.Converter<ResponseBody, T> responseConverter;
+  private final @Nullable ResponseCache responseCache;
+  private final long staleWhileRevalidateMillis;
+  private final ResponseBuffering responseBuffering;
 
   private volatile boolean canceled;
 
@@ -53,21 +57,41 @@ final class OkHttpCall<T> implements Call<T> {
   @GuardedBy("this")
   private boolean executed;
 
+  /** This call's cache entry, if any. Set when the raw call is created. */
+  @GuardedBy("this")
+  private @Nullable ResponseCache.Lookup cacheLookup;
+
   OkHttpCall(
       RequestFactory requestFactory,
+      Endpoint endpoint,
       Object[] args,
       okhttp3.Call.Factory callFactory,
-      Converter<ResponseBody, T> responseConverter) {
+      Converter<ResponseBody, T> responseConverter,
+      @Nullable ResponseCache responseCache,
+      long staleWhileRevalidateMillis,
+      ResponseBuffering responseBuffering) {
     this.requestFactory = requestFactory;
+    this.endpoint = endpoint;
     this.args = args;
     this.callFactory = callFactory;
     this.responseConverter = responseConverter;
+    this.responseCache = responseCache;
+    this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+    this.responseBuffering = responseBuffering;
   }
 
   @SuppressWarnings("CloneDoesntCallSuperClone") // We are a final type & this saves clearing state.
   @Override
   public OkHttpCall<T> clone() {
-    return new OkHttpCall<>(requestFactory, args, callFactory, responseConverter);
+    return new OkHttpCall<>(
+        requestFactory,
+        endpoint,
+        args,
+        callFactory,
+        responseConverter,
+        responseCache,
+        staleWhileRevalidateMillis,
+        responseBuffering);
   }
 
   @Override
@@ -125,6 +149,7 @@ final class OkHttpCall<T> implements Call<T> {
 
     okhttp3.Call call;
     Throwable failure;
+    ResponseCache.Lookup cacheLookup;
 
     synchronized (this) {
       if (executed) throw new IllegalStateException("Already executed.");
@@ -141,6 +166,7 @@ final class OkHttpCall<T> implements Call<T> {
           failure = creationFailure = t;
         }
       }
+      cacheLookup = this.cacheLookup;
     }
 
     if (failure != null) {
@@ -148,6 +174,14 @@ final class OkHttpCall<T> implements Call<T> {
       return;
     }
 
+    if (cacheLookup != null && !canceled) {
+      Response<T> cached = cachedResponse(cacheLookup);
+      if (cached != null) {
+        callback.onResponse(this, cached); // On the caller's thread, so failures reach it.
+        return;
+      }
+    }
+
     if (canceled) {
       call.cancel();
     }
@@ -199,23 +233,79 @@ final class OkHttpCall<T> implements Call<T> {
   @Override
   public retrofit2.Response<T> execute() throws IOException {
     okhttp3.Call call;
+    ResponseCache.Lookup cacheLookup;
 
     synchronized (this) {
       if (executed) throw new IllegalStateException("Already executed.");
       executed = true;
 
       call = getRawCall();
+      cacheLookup = this.cacheLookup;
     }
 
     if (canceled) {
       call.cancel();
+    } else if (cacheLookup != null) {
+      Response<T> cached = cachedResponse(cacheLookup);
+      if (cached != null) {
+        return cached;
+      }
     }
 
     return parseResponse(call.execute());
   }
 
+  /**
+   * Returns the cached response to use instead of a network exchange, if there is one. If it is
+   * stale this starts its background refresh, unless another call already has.
+   */
+  private @Nullable Response<T> cachedResponse(final ResponseCache.Lookup cacheLookup) {
+    //noinspection unchecked Entries are keyed by response converter, so T always matches.
+    Response<T> cached = (Response<T>) cacheLookup.cachedResponse();
+    if (cached != null && cacheLookup.claimRefresh()) {
+      // A call of its own so canceling this one leaves the refresh running. It never serves stale.
+      OkHttpCall<T> refresh =
+          new OkHttpCall<>(
+              requestFactory,
+              endpoint,
+              args,
+              callFactory,
+              responseConverter,
+              responseCache,
+              0L,
+              responseBuffering);
+      refresh.enqueue(
+          new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+              ResponseBody errorBody = response.errorBody();
+              if (errorBody != null) {
+                errorBody.close(); // Nobody reads it, and it may hold the connection.
+              }
+              cacheLookup.refreshed(); // The response was stored as it was parsed.
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+              cacheLookup.refreshed(); // Keep serving stale so a later call can try again.
+            }
+          });
+    }
+    return cached;
+  }
+
+  @GuardedBy("this")
   private okhttp3.Call createRawCall() throws IOException {
-    okhttp3.Call call = callFactory.newCall(requestFactory.create(args));
+    Request request = requestFactory.create(endpoint, args);
+    if (responseCache != null) {
+      ResponseCache.Lookup cacheLookup =
+          responseCache.lookup(responseConverter, request, staleWhileRevalidateMillis);
+      if (cacheLookup != null) {
+        this.cacheLookup = cacheLookup;
+        request = cacheLookup.request;
+      }
+    }
+    okhttp3.Call call = callFactory.newCall(request);
     if (call == null) {
       throw new NullPointerException("Call.Factory returned null.");
     }
@@ -232,17 +322,25 @@ final class OkHttpCall<T> implements Call<T> {
             .body(new NoContentResponseBody(rawBody.contentType(), rawBody.contentLength()))
             .build();
 
-    int code = rawResponse.code();
-    if (code < 200 || code >= 300) {
-      try {
-        // Buffer the entire body to avoid future I/O.
-        ResponseBody bufferedBody = retrofit2.Utils.buffer(rawBody);
-        return retrofit2.Response.error(bufferedBody, rawResponse);
-      } finally {
+    ResponseCache.Lookup cacheLookup;
+    synchronized (this) {
+      cacheLookup = this.cacheLookup;
+    }
+    if (cacheLookup != null) {
+      //noinspection unchecked Entries are keyed by response converter, so T always matches.
+      Response<T> cached = (Response<T>) cacheLookup.notModified(rawResponse);
+      if (cached != null) {
         rawBody.close();
+        return cached;
       }
     }
 
+    int code = rawResponse.code();
+    if (code < 200 || code >= 300) {
+      // Buffered, lazy or discarded depending on the configured ErrorBodyMode.
+      return retrofit2.Response.error(responseBuffering.errorBody(rawBody), rawResponse);
+    }
+
     if (code == 204 || code == 205) {
       rawBody.close();
       return retrofit2.Response.success(null, rawResponse);
@@ -250,7 +348,17 @@ final class OkHttpCall<T> implements Call<T> {
 
     ExceptionCatchingResponseBody catchingBody = new ExceptionCatchingResponseBody(rawBody);
     try {
-      T body = responseConverter.convert(catchingBody);
+      T body;
+      if (responseConverter instanceof FileDownload) {
+        // Downloads need the response headers to place and verify the body.
+        //noinspection unchecked Only used for Call<Path>.
+        body = (T) ((FileDownload) responseConverter).save(catchingBody, rawResponse);
+      } else {
+        body = responseConverter.convert(catchingBody);
+      }
+      if (cacheLookup != null) {
+        cacheLookup.converted(body, rawResponse);
+      }
       return Response.success(body, rawResponse);
     } catch (RuntimeException e) {
       // If the underlying source threw an exception, propagate that rather than indicating it was
@@ -18,11 +18,15 @@ package com.ownbranch.retrofit2;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Objects;
 import javax.annotation.Nullable;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import retrofit2.Converter;
 import retrofit2.RequestBuilder;
 import retrofit2.Utils;
@@ -142,6 +146,96 @@ abstract class ParameterHandler<T> {
     }
   }
 
+  /**
+   * Formats an {@code int}, {@code long} or {@code boolean} parameter directly rather than through
+   * the built-in {@code toString()} converter. Only used when no converter factory claimed the type.
+   */
+  abstract static class Primitive extends ParameterHandler<Object> {
+    @Override
+    final void apply(retrofit2.RequestBuilder builder, @Nullable Object value) throws IOException {
+      if (value == null) {
+        applyNull();
+      } else if (value instanceof Boolean) {
+        apply(builder, ((Boolean) value).booleanValue());
+      } else {
+        apply(builder, ((Number) value).longValue());
+      }
+    }
+
+    /** Called for a null boxed value. Handlers which skip nulls do nothing. */
+    void applyNull() {}
+
+    abstract void apply(retrofit2.RequestBuilder builder, long value);
+
+    abstract void apply(retrofit2.RequestBuilder builder, boolean value);
+  }
+
+  static final class PrimitivePath extends Primitive {
+    private final Method method;
+    private final int p;
+    private final String name;
+
+    PrimitivePath(Method method, int p, String name) {
+      this.method = method;
+      this.p = p;
+      this.name = Objects.requireNonNull(name, "name == null");
+    }
+
+    @Override
+    void applyNull() {
+      throw retrofit2.Utils.parameterError(
+          method, p, "Path parameter \"" + name + "\" value must not be null.");
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, long value) {
+      builder.addPathParam(name, value);
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, boolean value) {
+      builder.addPathParam(name, value);
+    }
+  }
+
+  static final class PrimitiveQuery extends Primitive {
+    private final String name;
+    private final boolean encoded;
+
+    PrimitiveQuery(String name, boolean encoded) {
+      this.name = Objects.requireNonNull(name, "name == null");
+      this.encoded = encoded;
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, long value) {
+      builder.addQueryParam(name, value, encoded);
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, boolean value) {
+      builder.addQueryParam(name, value ? "true" : "false", encoded);
+    }
+  }
+
+  static final class PrimitiveHeader extends Primitive {
+    private final String name;
+
+    PrimitiveHeader(String name) {
+      this.name = Objects.requireNonNull(name, "name == null");
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, long value) {
+      builder.addHeader(name, value);
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, boolean value) {
+      builder.addHeader(name, value ? "true" : "false");
+    }
+  }
+
   static final class QueryName<T> extends ParameterHandler<T> {
     private final retrofit2.Converter<T, String> nameConverter;
     private final boolean encoded;
@@ -279,7 +373,8 @@ abstract class ParameterHandler<T> {
     }
   }
 
-  static final class FieldMap<T> extends ParameterHandler<Map<String, T>> {
+  static final class FieldMap<T> extends ParameterHandler<Map<String, T>>
+      implements StreamingFormBody.EntryConverter<T> {
     private final Method method;
     private final int p;
     private final retrofit2.Converter<T, String> valueConverter;
@@ -298,33 +393,40 @@ abstract class ParameterHandler<T> {
         throw retrofit2.Utils.parameterError(method, p, "Field map was null.");
       }
 
+      if (builder.streamsFormFields()) {
+        builder.addFormFields(value, this, encoded); // Converted as the body is written.
+        return;
+      }
       for (Map.Entry<String, T> entry : value.entrySet()) {
         String entryKey = entry.getKey();
-        if (entryKey == null) {
-          throw retrofit2.Utils.parameterError(method, p, "Field map contained null key.");
-        }
-        T entryValue = entry.getValue();
-        if (entryValue == null) {
-          throw retrofit2.Utils.parameterError(
-              method, p, "Field map contained null value for key '" + entryKey + "'.");
-        }
+        builder.addFormField(entryKey, convert(entryKey, entry.getValue()), encoded);
+      }
+    }
 
-        String fieldEntry = valueConverter.convert(entryValue);
-        if (fieldEntry == null) {
-          throw retrofit2.Utils.parameterError(
-              method,
-              p,
-              "Field map value '"
-                  + entryValue
-                  + "' converted to null by "
-                  + valueConverter.getClass().getName()
-                  + " for key '"
-                  + entryKey
-                  + "'.");
-        }
+    @Override
+    public String convert(@Nullable String entryKey, @Nullable T entryValue) throws IOException {
+      if (entryKey == null) {
+        throw retrofit2.Utils.parameterError(method, p, "Field map contained null key.");
+      }
+      if (entryValue == null) {
+        throw retrofit2.Utils.parameterError(
+            method, p, "Field map contained null value for key '" + entryKey + "'.");
+      }
 
-        builder.addFormField(entryKey, fieldEntry, encoded);
+      String fieldEntry = valueConverter.convert(entryValue);
+      if (fieldEntry == null) {
+        throw retrofit2.Utils.parameterError(
+            method,
+            p,
+            "Field map value '"
+                + entryValue
+                + "' converted to null by "
+                + valueConverter.getClass().getName()
+                + " for key '"
+                + entryKey
+                + "'.");
       }
+      return fieldEntry;
     }
   }
 
@@ -437,6 +539,41 @@ abstract class ParameterHandler<T> {
     }
   }
 
+  @IgnoreJRERequirement // Only used for java.nio.file.Path parameters.
+  static final class SaveTo extends ParameterHandler<Path> {
+    private final Method method;
+    private final int p;
+    private final boolean resume;
+
+    SaveTo(Method method, int p, boolean resume) {
+      this.method = method;
+      this.p = p;
+      this.resume = resume;
+    }
+
+    @Override
+    void apply(retrofit2.RequestBuilder builder, @Nullable Path value) throws IOException {
+      if (value == null) {
+        throw retrofit2.Utils.parameterError(
+            method, p, "@SaveTo parameter value must not be null.");
+      }
+      long resumeFrom = 0L;
+      String validator = resume ? FileDownload.readValidator(value) : null;
+      if (validator != null) { // Without one the partial file may be of an older version.
+        try {
+          resumeFrom = Files.size(value);
+        } catch (NoSuchFileException ignored) {
+        }
+      }
+      if (resumeFrom > 0L) {
+        builder.addHeader("Range", "bytes=" + resumeFrom + "-");
+        builder.addHeader("If-Range", validator);
+      }
+      builder.addTag(
+          FileDownload.Target.class, new FileDownload.Target(value, resumeFrom, resume));
+    }
+  }
+
   static final class Tag<T> extends ParameterHandler<T> {
     final Class<T> cls;
 
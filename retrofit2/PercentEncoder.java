@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+/**
+ * Percent-encodes URL path segments, query components and form fields.
+ *
+ * <p>Each encode set is a 128-bit table of the ASCII characters that must be escaped, which
+ * always includes the control characters. Input with no escapable character is returned as-is
+ * after a single table scan. Otherwise the input is encoded into a {@link StringBuilder}, with
+ * non-ASCII code points escaped as their UTF-8 bytes.
+ *
+ * <p>The query and form sets match those of {@link okhttp3.HttpUrl} and {@link okhttp3.FormBody}.
+ * Their builders therefore accept the output as already encoded and leave it unchanged.
+ */
+final class PercentEncoder {
+  private static final char[] HEX_DIGITS = {
+    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+  };
+
+  /** A single path segment. Already-encoded input may contain {@code /} and {@code %}. */
+  static final PercentEncoder PATH_SEGMENT =
+      new PercentEncoder(" \"<>^`{}|\\?#/%", " \"<>^`{}|\\?#");
+
+  /** A query parameter name or value. {@code +} is escaped so it is not read as a space. */
+  static final PercentEncoder QUERY_COMPONENT =
+      new PercentEncoder(" !\"#$&'(),/:;<=>?@[]\\^`{|}~+%", " \"'<>#&=");
+
+  /** A form field name or value. {@code +} is escaped so it is not read as a space. */
+  static final PercentEncoder FORM =
+      new PercentEncoder(" \"':;<=>@[]^`{}|/\\?#&!$(),~+%", " \"':;<=>@[]^`{}|/\\?#&!$(),~");
+
+  private final long[] encodeSet;
+  private final long[] reencodeSet;
+
+  /**
+   * @param encodeSet characters escaped in raw input.
+   * @param reencodeSet characters escaped in already-encoded input. Existing escapes are kept.
+   */
+  private PercentEncoder(String encodeSet, String reencodeSet) {
+    this.encodeSet = table(encodeSet);
+    this.reencodeSet = table(reencodeSet);
+  }
+
+  private static long[] table(String characters) {
+    long[] table = new long[2];
+    for (int c = 0; c < 0x20; c++) {
+      table[0] |= 1L << c;
+    }
+    table[1] |= 1L << (0x7f - 64);
+    for (int i = 0; i < characters.length(); i++) {
+      char c = characters.charAt(i);
+      table[c >>> 6] |= 1L << c;
+    }
+    return table;
+  }
+
+  private static boolean contains(long[] table, int c) {
+    return (table[c >>> 6] & (1L << c)) != 0;
+  }
+
+  /** Returns {@code input} escaped, or {@code input} itself if nothing needed escaping. */
+  String encode(String input, boolean alreadyEncoded) {
+    long[] table = alreadyEncoded ? reencodeSet : encodeSet;
+    for (int i = 0, limit = input.length(); i < limit; i++) {
+      char c = input.charAt(i);
+      if (c >= 0x80 || contains(table, c)) {
+        // Slow path: the character at i requires encoding!
+        StringBuilder out = new StringBuilder(limit + 16);
+        out.append(input, 0, i);
+        encode(out, table, input, i, limit, alreadyEncoded);
+        return out.toString();
+      }
+    }
+
+    // Fast path: no characters required encoding.
+    return input;
+  }
+
+  /** Appends {@code input} escaped to {@code out}. */
+  void encode(StringBuilder out, String input, boolean alreadyEncoded) {
+    long[] table = alreadyEncoded ? reencodeSet : encodeSet;
+    int limit = input.length();
+    for (int i = 0; i < limit; i++) {
+      char c = input.charAt(i);
+      if (c >= 0x80 || contains(table, c)) {
+        out.append(input, 0, i);
+        encode(out, table, input, i, limit, alreadyEncoded);
+        return;
+      }
+    }
+    out.append(input);
+  }
+
+  /** Returns the length of {@code input} once escaped, without escaping it. */
+  long encodedLength(String input, boolean alreadyEncoded) {
+    long[] table = alreadyEncoded ? reencodeSet : encodeSet;
+    long length = 0;
+    int codePoint;
+    for (int i = 0, limit = input.length(); i < limit; i += Character.charCount(codePoint)) {
+      codePoint = input.codePointAt(i);
+      if (codePoint < 0x80) {
+        if (alreadyEncoded
+            && (codePoint == '\t' || codePoint == '\n' || codePoint == '\f' || codePoint == '\r')) {
+          // Skipped.
+        } else {
+          length += contains(table, codePoint) ? 3 : 1;
+        }
+      } else if (codePoint < 0x800) {
+        length += 6;
+      } else if (codePoint >= 0xd800 && codePoint <= 0xdfff) {
+        length += 3;
+      } else if (codePoint < 0x10000) {
+        length += 9;
+      } else {
+        length += 12;
+      }
+    }
+    return length;
+  }
+
+  private static void encode(
+      StringBuilder out, long[] table, String input, int pos, int limit, boolean alreadyEncoded) {
+    int codePoint;
+    for (int i = pos; i < limit; i += Character.charCount(codePoint)) {
+      codePoint = input.codePointAt(i);
+      if (codePoint < 0x80) {
+        if (alreadyEncoded
+            && (codePoint == '\t' || codePoint == '\n' || codePoint == '\f' || codePoint == '\r')) {
+          // Skip this character.
+        } else if (contains(table, codePoint)) {
+          appendEscaped(out, codePoint);
+        } else {
+          out.append((char) codePoint);
+        }
+      } else if (codePoint < 0x800) {
+        appendEscaped(out, 0xc0 | codePoint >> 6);
+        appendEscaped(out, 0x80 | codePoint & 0x3f);
+      } else if (codePoint >= 0xd800 && codePoint <= 0xdfff) {
+        appendEscaped(out, '?'); // Unpaired surrogate, as written by okio.
+      } else if (codePoint < 0x10000) {
+        appendEscaped(out, 0xe0 | codePoint >> 12);
+        appendEscaped(out, 0x80 | codePoint >> 6 & 0x3f);
+        appendEscaped(out, 0x80 | codePoint & 0x3f);
+      } else {
+        appendEscaped(out, 0xf0 | codePoint >> 18);
+        appendEscaped(out, 0x80 | codePoint >> 12 & 0x3f);
+        appendEscaped(out, 0x80 | codePoint >> 6 & 0x3f);
+        appendEscaped(out, 0x80 | codePoint & 0x3f);
+      }
+    }
+  }
+
+  private static void appendEscaped(StringBuilder out, int b) {
+    out.append('%').append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+  }
+}
@@ -23,13 +23,16 @@ import android.annotation.TargetApi;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
@@ -76,8 +79,18 @@ abstract class Platform {
 
   abstract List<? extends Converter.Factory> createDefaultConverterFactories();
 
+  /**
+   * Returns the factory for {@code Stream}, {@code Iterator} and {@code Flow.Publisher} bodies, or
+   * null if streams are unavailable. It is consulted by {@link BuiltInConverters}, ahead of user
+   * factories, because catch-all converters would otherwise claim these types.
+   */
+  abstract @Nullable Converter.Factory createRecordStreamConverterFactory();
+
   abstract boolean isDefaultMethod(Method method);
 
+  /** True if {@link java.lang.invoke.MethodHandle} composition is available and efficient. */
+  abstract boolean supportsMethodHandles();
+
   abstract @Nullable Object invokeDefaultMethod(
       Method method, Class<?> declaringClass, Object proxy, Object... args) throws Throwable;
 
@@ -87,6 +100,11 @@ abstract class Platform {
       return false;
     }
 
+    @Override
+    boolean supportsMethodHandles() {
+      return false;
+    }
+
     @Nullable
     @Override
     Object invokeDefaultMethod(
@@ -109,6 +127,12 @@ abstract class Platform {
     List<? extends Converter.Factory> createDefaultConverterFactories() {
       return emptyList();
     }
+
+    @Override
+    @Nullable
+    Converter.Factory createRecordStreamConverterFactory() {
+      return null;
+    }
   }
 
   @IgnoreJRERequirement // Only used on Android API 24+
@@ -118,7 +142,28 @@ abstract class Platform {
       return Build.VERSION.SDK_INT >= 24;
     }
 
-    private @Nullable Constructor<Lookup> lookupConstructor;
+    // Created lazily because MethodHandle only exists on API 26+.
+    private @Nullable DefaultMethodHandles defaultMethodHandles;
+
+    private DefaultMethodHandles createDefaultMethodHandles() {
+      return new DefaultMethodHandles() {
+        private @Nullable Constructor<Lookup> lookupConstructor;
+
+        @Override
+        MethodHandle unreflectSpecial(Method method, Class<?> declaringClass)
+            throws ReflectiveOperationException {
+          Constructor<Lookup> lookupConstructor = this.lookupConstructor;
+          if (lookupConstructor == null) {
+            lookupConstructor = Lookup.class.getDeclaredConstructor(Class.class, int.class);
+            lookupConstructor.setAccessible(true);
+            this.lookupConstructor = lookupConstructor;
+          }
+          return lookupConstructor
+              .newInstance(declaringClass, -1 /* trusted */)
+              .unreflectSpecial(method, declaringClass);
+        }
+      };
+    }
 
     @Override
     Executor defaultCallbackExecutor() {
@@ -138,11 +183,21 @@ abstract class Platform {
       return singletonList(new OptionalConverterFactory());
     }
 
+    @Override
+    Converter.Factory createRecordStreamConverterFactory() {
+      return new RecordStreamConverterFactory();
+    }
+
     @Override
     public boolean isDefaultMethod(Method method) {
       return method.isDefault();
     }
 
+    @Override
+    boolean supportsMethodHandles() {
+      return Build.VERSION.SDK_INT >= 26;
+    }
+
     @Nullable
     @Override
     public Object invokeDefaultMethod(
@@ -151,17 +206,12 @@ abstract class Platform {
         throw new UnsupportedOperationException(
             "Calling default methods on API 24 and 25 is not supported");
       }
-      Constructor<Lookup> lookupConstructor = this.lookupConstructor;
-      if (lookupConstructor == null) {
-        lookupConstructor = Lookup.class.getDeclaredConstructor(Class.class, int.class);
-        lookupConstructor.setAccessible(true);
-        this.lookupConstructor = lookupConstructor;
+      DefaultMethodHandles defaultMethodHandles = this.defaultMethodHandles;
+      if (defaultMethodHandles == null) {
+        defaultMethodHandles = createDefaultMethodHandles();
+        this.defaultMethodHandles = defaultMethodHandles;
       }
-      return lookupConstructor
-          .newInstance(declaringClass, -1 /* trusted */)
-          .unreflectSpecial(method, declaringClass)
-          .bindTo(proxy)
-          .invokeWithArguments(args);
+      return defaultMethodHandles.invoke(method, declaringClass, proxy, args);
     }
   }
 
@@ -183,11 +233,22 @@ abstract class Platform {
       return emptyList();
     }
 
+    @Override
+    @Nullable
+    Converter.Factory createRecordStreamConverterFactory() {
+      return null;
+    }
+
     @Override
     boolean isDefaultMethod(Method method) {
       return false;
     }
 
+    @Override
+    boolean supportsMethodHandles() {
+      return false;
+    }
+
     @Nullable
     @Override
     Object invokeDefaultMethod(
@@ -199,7 +260,24 @@ abstract class Platform {
   @IgnoreJRERequirement // Only used on JVM and Java 8 is the minimum-supported version.
   @SuppressWarnings("NewApi") // Not used for Android.
   private static final class Java8 extends Platform {
-    private @Nullable Constructor<Lookup> lookupConstructor;
+    private final DefaultMethodHandles defaultMethodHandles =
+        new DefaultMethodHandles() {
+          private @Nullable Constructor<Lookup> lookupConstructor;
+
+          @Override
+          MethodHandle unreflectSpecial(Method method, Class<?> declaringClass)
+              throws ReflectiveOperationException {
+            Constructor<Lookup> lookupConstructor = this.lookupConstructor;
+            if (lookupConstructor == null) {
+              lookupConstructor = Lookup.class.getDeclaredConstructor(Class.class, int.class);
+              lookupConstructor.setAccessible(true);
+              this.lookupConstructor = lookupConstructor;
+            }
+            return lookupConstructor
+                .newInstance(declaringClass, -1 /* trusted */)
+                .unreflectSpecial(method, declaringClass);
+          }
+        };
 
     @Nullable
     @Override
@@ -220,25 +298,25 @@ abstract class Platform {
       return singletonList(new OptionalConverterFactory());
     }
 
+    @Override
+    Converter.Factory createRecordStreamConverterFactory() {
+      return new RecordStreamConverterFactory();
+    }
+
     @Override
     public boolean isDefaultMethod(Method method) {
       return method.isDefault();
     }
 
+    @Override
+    boolean supportsMethodHandles() {
+      return true;
+    }
+
     @Override
     public @Nullable Object invokeDefaultMethod(
         Method method, Class<?> declaringClass, Object proxy, Object... args) throws Throwable {
-      Constructor<Lookup> lookupConstructor = this.lookupConstructor;
-      if (lookupConstructor == null) {
-        lookupConstructor = Lookup.class.getDeclaredConstructor(Class.class, int.class);
-        lookupConstructor.setAccessible(true);
-        this.lookupConstructor = lookupConstructor;
-      }
-      return lookupConstructor
-          .newInstance(declaringClass, -1 /* trusted */)
-          .unreflectSpecial(method, declaringClass)
-          .bindTo(proxy)
-          .invokeWithArguments(args);
+      return defaultMethodHandles.invoke(method, declaringClass, proxy, args);
     }
   }
 
@@ -260,6 +338,15 @@ abstract class Platform {
       }
     }
 
+    private final DefaultMethodHandles defaultMethodHandles =
+        new DefaultMethodHandles() {
+          @Override
+          MethodHandle unreflectSpecial(Method method, Class<?> declaringClass)
+              throws IllegalAccessException {
+            return MethodHandles.lookup().unreflectSpecial(method, declaringClass);
+          }
+        };
+
     @Nullable
     @Override
     Executor defaultCallbackExecutor() {
@@ -279,19 +366,26 @@ abstract class Platform {
       return singletonList(new OptionalConverterFactory());
     }
 
+    @Override
+    Converter.Factory createRecordStreamConverterFactory() {
+      return new RecordStreamConverterFactory();
+    }
+
     @Override
     public boolean isDefaultMethod(Method method) {
       return method.isDefault();
     }
 
+    @Override
+    boolean supportsMethodHandles() {
+      return true;
+    }
+
     @Nullable
     @Override
     public Object invokeDefaultMethod(
         Method method, Class<?> declaringClass, Object proxy, Object... args) throws Throwable {
-      return MethodHandles.lookup()
-          .unreflectSpecial(method, declaringClass)
-          .bindTo(proxy)
-          .invokeWithArguments(args);
+      return defaultMethodHandles.invoke(method, declaringClass, proxy, args);
     }
   }
 
@@ -333,11 +427,21 @@ abstract class Platform {
       return singletonList(new OptionalConverterFactory());
     }
 
+    @Override
+    Converter.Factory createRecordStreamConverterFactory() {
+      return new RecordStreamConverterFactory();
+    }
+
     @Override
     public boolean isDefaultMethod(Method method) {
       return method.isDefault();
     }
 
+    @Override
+    boolean supportsMethodHandles() {
+      return true;
+    }
+
     @SuppressWarnings("JavaReflectionMemberAccess") // Only available on Java 16, as we expect.
     @Nullable
     @Override
@@ -354,6 +458,45 @@ abstract class Platform {
     }
   }
 
+  /**
+   * Resolves the handle for each default method once per method and interface, adapted so that
+   * calls are a single {@link MethodHandle#invokeExact} with no per-call lookup or binding.
+   */
+  @IgnoreJRERequirement // Only used on JVM and Android API 24+.
+  private abstract static class DefaultMethodHandles {
+    /** The shape of every cached handle: (proxy, args) -> result. */
+    private static final MethodType INVOKE_TYPE =
+        MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    /** Handles by interface, held without keeping the interface or its class loader loaded. */
+    private final ClassCache<ConcurrentHashMap<Method, MethodHandle>> handles =
+        new ClassCache<ConcurrentHashMap<Method, MethodHandle>>() {
+          @Override
+          ConcurrentHashMap<Method, MethodHandle> compute(Class<?> declaringClass) {
+            return new ConcurrentHashMap<>();
+          }
+        };
+
+    abstract MethodHandle unreflectSpecial(Method method, Class<?> declaringClass)
+        throws ReflectiveOperationException;
+
+    final @Nullable Object invoke(
+        Method method, Class<?> declaringClass, Object proxy, Object[] args) throws Throwable {
+      ConcurrentHashMap<Method, MethodHandle> methodHandles = handles.get(declaringClass);
+
+      MethodHandle handle = methodHandles.get(method);
+      if (handle == null) {
+        // Racing threads may both resolve the handle. Either result is equivalent.
+        handle =
+            unreflectSpecial(method, declaringClass)
+                .asSpreader(Object[].class, method.getParameterTypes().length)
+                .asType(INVOKE_TYPE);
+        methodHandles.put(method, handle);
+      }
+      return (Object) handle.invokeExact(proxy, args);
+    }
+  }
+
   private static final class MainThreadExecutor implements Executor {
     static final Executor INSTANCE = new MainThreadExecutor();
 
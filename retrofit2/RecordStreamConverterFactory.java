@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import android.annotation.TargetApi;
+import com.ownbranch.retrofit2.http.Framing;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.net.ProtocolException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ByteString;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Converts bodies made of many records to a {@link Stream}, {@link Iterator} or {@code
+ * Flow.Publisher} of those records. Nothing is read until the first element is requested, and each
+ * record is read and converted only as it is consumed, so bodies of any size stream through a
+ * bounded amount of memory. Records are split according to the method's {@link Framing}.
+ *
+ * <p>The response body stays open until every record has been consumed or the caller closes the
+ * stream or iterator, or cancels its subscription.
+ *
+ * <p>This is consulted by {@link BuiltInConverters} before any user factory, so catch-all
+ * converters never claim these wrapper types. They still convert each record, since the element
+ * type is resolved through {@link Retrofit#responseBodyConverter}.
+ */
+@IgnoreJRERequirement // Only added when streams are available (Java 8+ / Android API 24+).
+@TargetApi(24)
+final class RecordStreamConverterFactory extends Converter.Factory {
+  private static final ByteString CR = ByteString.encodeUtf8("\r");
+  private static final String FLOW = "java.util.concurrent.Flow";
+
+  @Override
+  public @Nullable Converter<ResponseBody, ?> responseBodyConverter(
+      Type type, Annotation[] annotations, Retrofit retrofit) {
+    Class<?> rawType = getRawType(type);
+    // Publisher is compared by name so that Java 8 and older Android versions never load Flow.
+    boolean isPublisher = rawType.getName().equals(FLOW + "$Publisher");
+    if (rawType != Stream.class && rawType != Iterator.class && !isPublisher) {
+      return null;
+    }
+    if (!(type instanceof ParameterizedType)) {
+      String name = isPublisher ? "Flow.Publisher" : rawType.getSimpleName();
+      throw new IllegalStateException(
+          name + " return type must be parameterized as " + name + "<Foo> or " + name
+              + "<? extends Foo>");
+    }
+
+    Type elementType = getParameterUpperBound(0, (ParameterizedType) type);
+    Converter<ResponseBody, Object> elementConverter =
+        retrofit.responseBodyConverter(elementType, annotations);
+    Framing.Kind framing = Framing.Kind.NEWLINE_DELIMITED;
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof Framing) {
+        framing = ((Framing) annotation).value();
+      }
+    }
+
+    if (rawType == Stream.class) {
+      return new StreamConverter<>(framing, elementConverter);
+    }
+    if (rawType == Iterator.class) {
+      return new IteratorConverter<>(framing, elementConverter);
+    }
+    return new PublisherConverter<>(rawType, framing, elementConverter);
+  }
+
+  static final class IteratorConverter<T> implements Converter<ResponseBody, Iterator<T>> {
+    private final Framing.Kind framing;
+    private final Converter<ResponseBody, T> elementConverter;
+
+    IteratorConverter(Framing.Kind framing, Converter<ResponseBody, T> elementConverter) {
+      this.framing = framing;
+      this.elementConverter = elementConverter;
+    }
+
+    @Override
+    public Iterator<T> convert(ResponseBody value) {
+      return new RecordIterator<>(value, framing, elementConverter);
+    }
+  }
+
+  @IgnoreJRERequirement
+  static final class StreamConverter<T> implements Converter<ResponseBody, Stream<T>> {
+    private final Framing.Kind framing;
+    private final Converter<ResponseBody, T> elementConverter;
+
+    StreamConverter(Framing.Kind framing, Converter<ResponseBody, T> elementConverter) {
+      this.framing = framing;
+      this.elementConverter = elementConverter;
+    }
+
+    @Override
+    public Stream<T> convert(ResponseBody value) {
+      RecordIterator<T> records = new RecordIterator<>(value, framing, elementConverter);
+      return StreamSupport.stream(
+              Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED), false)
+          .onClose(records::close);
+    }
+  }
+
+  /**
+   * Creates {@code Flow.Publisher} instances as proxies, and talks to their subscribers
+   * reflectively, because this is compiled against the Java 8 API.
+   */
+  static final class PublisherConverter<T> implements Converter<ResponseBody, Object> {
+    private final Class<?> publisherType;
+    private final Framing.Kind framing;
+    private final Converter<ResponseBody, T> elementConverter;
+    private final Class<?> subscriptionType;
+    private final Method onSubscribe;
+    private final Method onNext;
+    private final Method onError;
+    private final Method onComplete;
+
+    PublisherConverter(
+        Class<?> publisherType, Framing.Kind framing, Converter<ResponseBody, T> elementConverter) {
+      this.publisherType = publisherType;
+      this.framing = framing;
+      this.elementConverter = elementConverter;
+      try {
+        ClassLoader classLoader = publisherType.getClassLoader();
+        subscriptionType = Class.forName(FLOW + "$Subscription", false, classLoader);
+        Class<?> subscriberType = Class.forName(FLOW + "$Subscriber", false, classLoader);
+        onSubscribe = subscriberType.getMethod("onSubscribe", subscriptionType);
+        onNext = subscriberType.getMethod("onNext", Object.class);
+        onError = subscriberType.getMethod("onError", Throwable.class);
+        onComplete = subscriberType.getMethod("onComplete");
+      } catch (ReflectiveOperationException e) {
+        throw new AssertionError(e); // Flow$Publisher exists, so its sibling types do too.
+      }
+    }
+
+    @Override
+    public Object convert(ResponseBody value) {
+      RecordIterator<T> records = new RecordIterator<>(value, framing, elementConverter);
+      AtomicBoolean subscribed = new AtomicBoolean();
+      return proxy(
+          publisherType,
+          (name, args) -> {
+            Object subscriber = Objects.requireNonNull(args[0], "subscriber == null");
+            if (!subscribed.compareAndSet(false, true)) {
+              invoke(onSubscribe, subscriber, proxy(subscriptionType, (ignored, unused) -> {}));
+              invoke(
+                  onError,
+                  subscriber,
+                  new IllegalStateException("A response body can only be subscribed to once."));
+              return;
+            }
+            RecordSubscription<T> subscription =
+                new RecordSubscription<>(this, subscriber, records);
+            Object subscriptionProxy =
+                proxy(
+                    subscriptionType,
+                    (method, methodArgs) -> {
+                      if (method.equals("request")) {
+                        subscription.request((Long) methodArgs[0]);
+                      } else {
+                        subscription.cancel();
+                      }
+                    });
+            invoke(onSubscribe, subscriber, subscriptionProxy);
+          });
+    }
+
+    /** Calls {@code method} on {@code subscriber}, rethrowing whatever it throws. */
+    void invoke(Method method, Object subscriber, Object... args) {
+      try {
+        method.invoke(subscriber, args);
+      } catch (InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        throw new RuntimeException(cause);
+      } catch (IllegalAccessException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    /** Implements every abstract method of a proxied interface, each of which returns void. */
+    interface MethodBody {
+      void invoke(String methodName, Object[] args);
+    }
+
+    private static Object proxy(Class<?> type, MethodBody body) {
+      InvocationHandler handler =
+          (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+              switch (method.getName()) {
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                default:
+                  return type.getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+              }
+            }
+            body.invoke(method.getName(), args);
+            return null;
+          };
+      return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+  }
+
+  /**
+   * Reads and converts one record at a time. Closes the body once it is exhausted or fails. I/O
+   * failures are rethrown as {@link UncheckedIOException} since iterators cannot throw them.
+   */
+  @IgnoreJRERequirement
+  static final class RecordIterator<T> implements Iterator<T>, Closeable {
+    private final ResponseBody body;
+    private final BufferedSource source;
+    private final @Nullable MediaType contentType;
+    private final Framing.Kind framing;
+    private final Converter<ResponseBody, T> elementConverter;
+    private @Nullable Buffer next;
+    private boolean closed;
+
+    RecordIterator(
+        ResponseBody body, Framing.Kind framing, Converter<ResponseBody, T> elementConverter) {
+      this.body = body;
+      this.source = body.source();
+      this.contentType = body.contentType();
+      this.framing = framing;
+      this.elementConverter = elementConverter;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) return true;
+      if (closed) return false;
+      try {
+        next = readRecord();
+      } catch (IOException e) {
+        close();
+        throw new UncheckedIOException(e);
+      }
+      if (next == null) {
+        close();
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      Buffer record = next;
+      next = null;
+      //noinspection ConstantConditions Checked by hasNext().
+      try (ResponseBody element = ResponseBody.create(contentType, record.size(), record)) {
+        return elementConverter.convert(element);
+      } catch (IOException e) {
+        close();
+        throw new UncheckedIOException(e);
+      } catch (RuntimeException | Error e) {
+        close();
+        throw e;
+      }
+    }
+
+    /** Returns the next record, or null if the body is exhausted. */
+    private @Nullable Buffer readRecord() throws IOException {
+      switch (framing) {
+        case NEWLINE_DELIMITED:
+          return readLine();
+        case LENGTH_PREFIXED:
+          if (source.exhausted()) return null;
+          return readRecord(source.readInt() & 0xffffffffL);
+        case VARINT_LENGTH_PREFIXED:
+          if (source.exhausted()) return null;
+          return readRecord(readVarint());
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    private Buffer readRecord(long byteCount) throws IOException {
+      Buffer record = new Buffer();
+      source.readFully(record, byteCount);
+      return record;
+    }
+
+    private @Nullable Buffer readLine() throws IOException {
+      while (!source.exhausted()) {
+        long newline = source.indexOf((byte) '\n');
+        if (newline == -1L) {
+          Buffer record = new Buffer();
+          source.readAll(record); // The last record has no line ending.
+          return record;
+        }
+        long length = newline > 0L && source.rangeEquals(newline - 1, CR) ? newline - 1 : newline;
+        Buffer record = readRecord(length);
+        source.skip(newline + 1 - length);
+        if (length > 0L) {
+          return record;
+        }
+      }
+      return null;
+    }
+
+    private long readVarint() throws IOException {
+      long result = 0L;
+      for (int shift = 0; shift < 64; shift += 7) {
+        if (source.exhausted()) throw new EOFException("Body ended inside a record length");
+        byte b = source.readByte();
+        result |= (long) (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          if (result < 0L) throw new ProtocolException("Record length too large");
+          return result;
+        }
+      }
+      throw new ProtocolException("Malformed record length");
+    }
+
+    @Override
+    public void close() {
+      if (closed) return;
+      closed = true;
+      next = null;
+      body.close();
+    }
+  }
+
+  /**
+   * Delivers records to one subscriber. Records are read on whichever thread calls {@link
+   * #request}, one at a time, and never more than were requested.
+   */
+  static final class RecordSubscription<T> {
+    private final PublisherConverter<T> converter;
+    private final Object subscriber;
+    private final RecordIterator<T> records;
+    private final AtomicLong requested = new AtomicLong();
+    /** Serializes delivery. Nonzero while a thread is draining. */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean canceled;
+    private volatile @Nullable Throwable badRequest;
+    private boolean done; // Only accessed while draining.
+
+    RecordSubscription(
+        PublisherConverter<T> converter, Object subscriber, RecordIterator<T> records) {
+      this.converter = converter;
+      this.subscriber = subscriber;
+      this.records = records;
+    }
+
+    void request(long n) {
+      if (n <= 0L) {
+        badRequest = new IllegalArgumentException("n <= 0: " + n);
+      } else {
+        requested.getAndUpdate(current -> current + n < 0L ? Long.MAX_VALUE : current + n);
+      }
+      drain();
+    }
+
+    void cancel() {
+      canceled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) return; // The draining thread will see this change.
+
+      int missed = 1;
+      do {
+        if (!done) {
+          deliver();
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void deliver() {
+      try {
+        while (true) {
+          if (canceled) {
+            done = true;
+            records.close();
+            return;
+          }
+          Throwable badRequest = this.badRequest;
+          if (badRequest != null) {
+            done = true;
+            records.close();
+            converter.invoke(converter.onError, subscriber, badRequest);
+            return;
+          }
+          if (requested.get() == 0L) {
+            return;
+          }
+          if (!records.hasNext()) {
+            done = true;
+            converter.invoke(converter.onComplete, subscriber);
+            return;
+          }
+          T record = records.next();
+          if (requested.get() != Long.MAX_VALUE) {
+            requested.decrementAndGet();
+          }
+          converter.invoke(converter.onNext, subscriber, record);
+        }
+      } catch (Throwable t) {
+        Utils.throwIfFatal(t);
+        done = true;
+        records.close();
+        Throwable failure = t instanceof UncheckedIOException ? t.getCause() : t;
+        converter.invoke(converter.onError, subscriber, failure);
+      }
+    }
+  }
+}
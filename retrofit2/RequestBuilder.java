@@ -16,6 +16,7 @@
 package com.ownbranch.retrofit2;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import okhttp3.FormBody;
@@ -25,15 +26,9 @@ import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.Request;
 import okhttp3.RequestBody;
-import okio.Buffer;
 import okio.BufferedSink;
 
 final class RequestBuilder {
-  private static final char[] HEX_DIGITS = {
-    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
-  };
-  private static final String PATH_SEGMENT_ALWAYS_ENCODE_SET = " \"<>^`{}|\\?#";
-
   /**
    * Matches strings that contain {@code .} or {@code ..} as a complete path segment. This also
    * matches dots in their percent-encoded form, {@code %2E}.
@@ -52,43 +47,69 @@ final class RequestBuilder {
   private final String method;
 
   private final HttpUrl baseUrl;
+  /** The relative URL resolved against {@link #baseUrl} in advance, if it is static. */
+  private final @Nullable HttpUrl resolvedUrl;
   private @Nullable String relativeUrl;
+  /** The URL followed by encoded query pairs. Created by the first query parameter. */
+  private @Nullable StringBuilder urlWithQuery;
+  private boolean hasQueryPair;
+  /** Resolves {@code @Url} values. Only set for methods with an {@code @Url} parameter. */
+  private final @Nullable UrlCache urlCache;
+  /** Used instead of {@link #urlWithQuery} when the URL has a fragment. */
   private @Nullable HttpUrl.Builder urlBuilder;
 
+  /** Non-null until expanded if the relative URL has {@code @Path} slots. */
+  private @Nullable UrlTemplate urlTemplate;
+  /** Encoded path values indexed like {@link UrlTemplate#names}, allocated on first use. */
+  private @Nullable String[] pathValues;
+  private @Nullable long[] pathNumbers;
+  private @Nullable boolean[] isPathNumber;
+
   private final Request.Builder requestBuilder;
-  private final Headers.Builder headersBuilder;
+  /** The method's static headers. Copied into {@link #headersBuilder} only if more are added. */
+  private final @Nullable Headers headers;
+  private @Nullable Headers.Builder headersBuilder;
   private @Nullable MediaType contentType;
 
   private final boolean hasBody;
   private @Nullable MultipartBody.Builder multipartBuilder;
   private @Nullable FormBody.Builder formBuilder;
+  /** Used instead of {@link #formBuilder} if form bodies are streamed. */
+  private @Nullable StreamingFormBody.Builder streamingFormBuilder;
   private @Nullable RequestBody body;
 
   RequestBuilder(
       String method,
       HttpUrl baseUrl,
+      @Nullable HttpUrl resolvedUrl,
       @Nullable String relativeUrl,
+      @Nullable UrlTemplate urlTemplate,
+      @Nullable UrlCache urlCache,
       @Nullable Headers headers,
       @Nullable MediaType contentType,
       boolean hasBody,
       boolean isFormEncoded,
-      boolean isMultipart) {
+      boolean isMultipart,
+      boolean streamFormBody) {
     this.method = method;
     this.baseUrl = baseUrl;
+    this.resolvedUrl = resolvedUrl;
     this.relativeUrl = relativeUrl;
+    this.urlTemplate = urlTemplate;
+    this.urlCache = urlCache;
     this.requestBuilder = new Request.Builder();
     this.contentType = contentType;
     this.hasBody = hasBody;
 
-    if (headers != null) {
-      headersBuilder = headers.newBuilder();
-    } else {
-      headersBuilder = new Headers.Builder();
-    }
+    this.headers = headers;
 
     if (isFormEncoded) {
       // Will be set to 'body' in 'build'.
-      formBuilder = new FormBody.Builder();
+      if (streamFormBody) {
+        streamingFormBuilder = new StreamingFormBody.Builder();
+      } else {
+        formBuilder = new FormBody.Builder();
+      }
     } else if (isMultipart) {
       // Will be set to 'body' in 'build'.
       multipartBuilder = new MultipartBody.Builder();
@@ -108,108 +129,210 @@ final class RequestBuilder {
         throw new IllegalArgumentException("Malformed content type: " + value, e);
       }
     } else {
-      headersBuilder.add(name, value);
+      headersBuilder().add(name, value);
     }
   }
 
+  void addHeader(String name, long value) {
+    addHeader(name, Long.toString(value));
+  }
+
   void addHeaders(Headers headers) {
-    headersBuilder.addAll(headers);
+    headersBuilder().addAll(headers);
+  }
+
+  private Headers.Builder headersBuilder() {
+    Headers.Builder headersBuilder = this.headersBuilder;
+    if (headersBuilder == null) {
+      headersBuilder = headers != null ? headers.newBuilder() : new Headers.Builder();
+      this.headersBuilder = headersBuilder;
+    }
+    return headersBuilder;
   }
 
   void addPathParam(String name, String value, boolean encoded) {
-    if (relativeUrl == null) {
-      // The relative URL is cleared when the first query parameter is set.
+    UrlTemplate urlTemplate = this.urlTemplate;
+    if (urlTemplate == null) {
+      // The template is expanded when the first query parameter is set.
       throw new AssertionError();
     }
-    String replacement = canonicalizeForPath(value, encoded);
-    String newRelativeUrl = relativeUrl.replace("{" + name + "}", replacement);
-    if (PATH_TRAVERSAL.matcher(newRelativeUrl).matches()) {
+    String replacement = PercentEncoder.PATH_SEGMENT.encode(value, encoded);
+    int index = urlTemplate.indexOf(name);
+    if (!urlTemplate.checkExpandedUrl && urlTemplate.isTraversal(index, replacement)) {
       throw new IllegalArgumentException(
           "@Path parameters shouldn't perform path traversal ('.' or '..'): " + value);
     }
-    relativeUrl = newRelativeUrl;
+    String[] pathValues = this.pathValues;
+    if (pathValues == null) {
+      pathValues = this.pathValues = new String[urlTemplate.names.length];
+    }
+    pathValues[index] = replacement;
   }
 
-  private static String canonicalizeForPath(String input, boolean alreadyEncoded) {
-    int codePoint;
-    for (int i = 0, limit = input.length(); i < limit; i += Character.charCount(codePoint)) {
-      codePoint = input.codePointAt(i);
-      if (codePoint < 0x20
-          || codePoint >= 0x7f
-          || PATH_SEGMENT_ALWAYS_ENCODE_SET.indexOf(codePoint) != -1
-          || (!alreadyEncoded && (codePoint == '/' || codePoint == '%'))) {
-        // Slow path: the character at i requires encoding!
-        Buffer out = new Buffer();
-        out.writeUtf8(input, 0, i);
-        canonicalizeForPath(out, input, i, limit, alreadyEncoded);
-        return out.readUtf8();
-      }
+  /**
+   * Fills {@code {name}} with the decimal digits of {@code value}. Digits and {@code -} never need
+   * encoding and cannot form a {@code .} or {@code ..} segment, so the value is appended directly
+   * when the template is expanded and the traversal check is skipped.
+   */
+  void addPathParam(String name, long value) {
+    UrlTemplate urlTemplate = this.urlTemplate;
+    if (urlTemplate == null) {
+      // The template is expanded when the first query parameter is set.
+      throw new AssertionError();
     }
+    int index = urlTemplate.indexOf(name);
+    long[] pathNumbers = this.pathNumbers;
+    boolean[] isPathNumber = this.isPathNumber;
+    if (pathNumbers == null || isPathNumber == null) {
+      pathNumbers = this.pathNumbers = new long[urlTemplate.names.length];
+      isPathNumber = this.isPathNumber = new boolean[urlTemplate.names.length];
+    }
+    pathNumbers[index] = value;
+    isPathNumber[index] = true;
+  }
 
-    // Fast path: no characters required encoding.
-    return input;
+  /** Fills {@code {name}} with {@code true} or {@code false}, neither of which need encoding. */
+  void addPathParam(String name, boolean value) {
+    UrlTemplate urlTemplate = this.urlTemplate;
+    if (urlTemplate == null) {
+      // The template is expanded when the first query parameter is set.
+      throw new AssertionError();
+    }
+    String[] pathValues = this.pathValues;
+    if (pathValues == null) {
+      pathValues = this.pathValues = new String[urlTemplate.names.length];
+    }
+    pathValues[urlTemplate.indexOf(name)] = value ? "true" : "false";
   }
 
-  private static void canonicalizeForPath(
-      Buffer out, String input, int pos, int limit, boolean alreadyEncoded) {
-    Buffer utf8Buffer = null; // Lazily allocated.
-    int codePoint;
-    for (int i = pos; i < limit; i += Character.charCount(codePoint)) {
-      codePoint = input.codePointAt(i);
-      if (alreadyEncoded
-          && (codePoint == '\t' || codePoint == '\n' || codePoint == '\f' || codePoint == '\r')) {
-        // Skip this character.
-      } else if (codePoint < 0x20
-          || codePoint >= 0x7f
-          || PATH_SEGMENT_ALWAYS_ENCODE_SET.indexOf(codePoint) != -1
-          || (!alreadyEncoded && (codePoint == '/' || codePoint == '%'))) {
-        // Percent encode this character.
-        if (utf8Buffer == null) {
-          utf8Buffer = new Buffer();
-        }
-        utf8Buffer.writeUtf8CodePoint(codePoint);
-        while (!utf8Buffer.exhausted()) {
-          int b = utf8Buffer.readByte() & 0xff;
-          out.writeByte('%');
-          out.writeByte(HEX_DIGITS[(b >> 4) & 0xf]);
-          out.writeByte(HEX_DIGITS[b & 0xf]);
-        }
-      } else {
-        // This character doesn't need encoding. Just copy it over.
-        out.writeUtf8CodePoint(codePoint);
+  /** Expands the URL template, if any, into {@link #relativeUrl} and returns the result. */
+  private @Nullable String relativeUrl() {
+    UrlTemplate urlTemplate = this.urlTemplate;
+    if (urlTemplate != null) {
+      String expanded = urlTemplate.expand(pathValues, pathNumbers, isPathNumber);
+      if (urlTemplate.checkExpandedUrl && PATH_TRAVERSAL.matcher(expanded).matches()) {
+        throw new IllegalArgumentException(
+            "@Path parameters shouldn't perform path traversal ('.' or '..'): " + expanded);
       }
+      relativeUrl = expanded;
+      this.urlTemplate = null;
     }
+    return relativeUrl;
   }
 
   void addQueryParam(String name, @Nullable String value, boolean encoded) {
-    if (relativeUrl != null) {
+    StringBuilder url = appendQueryName(name, encoded);
+    if (url != null) {
+      if (value != null) {
+        url.append('=');
+        PercentEncoder.QUERY_COMPONENT.encode(url, value, encoded);
+      }
+    } else {
+      // HttpUrl.Builder leaves components which are already in the query encode set untouched.
+      //noinspection ConstantConditions Non-null when urlWithQuery is not used.
+      urlBuilder.addEncodedQueryParameter(
+          PercentEncoder.QUERY_COMPONENT.encode(name, encoded),
+          value != null ? PercentEncoder.QUERY_COMPONENT.encode(value, encoded) : null);
+    }
+  }
+
+  void addQueryParam(String name, long value, boolean encoded) {
+    StringBuilder url = appendQueryName(name, encoded);
+    if (url != null) {
+      url.append('=').append(value);
+    } else {
+      //noinspection ConstantConditions Non-null when urlWithQuery is not used.
+      urlBuilder.addEncodedQueryParameter(
+          PercentEncoder.QUERY_COMPONENT.encode(name, encoded), Long.toString(value));
+    }
+  }
+
+  /**
+   * Appends the separator and encoded {@code name} of a new query pair and returns the buffer to
+   * append its value to, or null if {@link #urlBuilder} is in use instead.
+   */
+  private @Nullable StringBuilder appendQueryName(String name, boolean encoded) {
+    StringBuilder url = urlWithQuery;
+    if (url == null) {
+      if (urlBuilder != null) {
+        return null;
+      }
+      url = startQuery();
+      if (url == null) {
+        return null;
+      }
+    }
+    if (hasQueryPair) {
+      url.append('&');
+    }
+    hasQueryPair = true;
+    PercentEncoder.QUERY_COMPONENT.encode(url, name, encoded);
+    return url;
+  }
+
+  /**
+   * Starts the query with the resolved URL if there is one, or otherwise the relative URL. Pairs
+   * are appended to it as text and the result is parsed once by {@link #get()}. A URL with a
+   * fragment falls back to {@link HttpUrl.Builder} because the query must precede the fragment.
+   */
+  private @Nullable StringBuilder startQuery() {
+    String relativeUrl = relativeUrl();
+    HttpUrl resolvedUrl = this.resolvedUrl;
+    if (resolvedUrl == null && urlCache != null && relativeUrl != null) {
+      resolvedUrl = urlCache.resolve(baseUrl, relativeUrl);
+    }
+    String prefix;
+    if (resolvedUrl != null) {
+      prefix = resolvedUrl.encodedFragment() == null ? resolvedUrl.toString() : null;
+    } else {
+      //noinspection ConstantConditions A @Url parameter must precede @Query parameters.
+      prefix = relativeUrl.indexOf('#') == -1 ? relativeUrl : null;
+    }
+    this.relativeUrl = null;
+
+    if (prefix == null) {
       // Do a one-time combination of the built relative URL and the base URL.
       urlBuilder = baseUrl.newBuilder(relativeUrl);
       if (urlBuilder == null) {
         throw new IllegalArgumentException(
             "Malformed URL. Base: " + baseUrl + ", Relative: " + relativeUrl);
       }
-      relativeUrl = null;
+      return null;
     }
 
-    if (encoded) {
-      //noinspection ConstantConditions Checked to be non-null by above 'if' block.
-      urlBuilder.addEncodedQueryParameter(name, value);
-    } else {
-      //noinspection ConstantConditions Checked to be non-null by above 'if' block.
-      urlBuilder.addQueryParameter(name, value);
+    StringBuilder url = new StringBuilder(prefix.length() + 64).append(prefix);
+    int query = prefix.indexOf('?');
+    if (query == -1) {
+      url.append('?');
+    } else if (query != prefix.length() - 1) {
+      hasQueryPair = true; // Append after the existing query.
     }
+    return urlWithQuery = url;
   }
 
   @SuppressWarnings("ConstantConditions") // Only called when isFormEncoded was true.
   void addFormField(String name, String value, boolean encoded) {
-    if (encoded) {
-      formBuilder.addEncoded(name, value);
+    StreamingFormBody.Builder streamingFormBuilder = this.streamingFormBuilder;
+    if (streamingFormBuilder != null) {
+      streamingFormBuilder.add(name, value, encoded);
     } else {
-      formBuilder.add(name, value);
+      // FormBody.Builder leaves components which are already in the form encode set untouched.
+      formBuilder.addEncoded(
+          PercentEncoder.FORM.encode(name, encoded), PercentEncoder.FORM.encode(value, encoded));
     }
   }
 
+  /** True if form fields are encoded as the body is written, so field maps needn't be copied. */
+  boolean streamsFormFields() {
+    return streamingFormBuilder != null;
+  }
+
+  @SuppressWarnings("ConstantConditions") // Only called when streamsFormFields() was true.
+  <T> void addFormFields(
+      Map<String, T> fields, StreamingFormBody.EntryConverter<T> converter, boolean encoded) {
+    streamingFormBuilder.addAll(fields, converter, encoded);
+  }
+
   @SuppressWarnings("ConstantConditions") // Only called when isMultipart was true.
   void addPart(Headers headers, RequestBody body) {
     multipartBuilder.addPart(headers, body);
@@ -231,12 +354,26 @@ final class RequestBuilder {
   Request.Builder get() {
     HttpUrl url;
     HttpUrl.Builder urlBuilder = this.urlBuilder;
+    StringBuilder urlWithQuery = this.urlWithQuery;
     if (urlBuilder != null) {
       url = urlBuilder.build();
+    } else if (urlWithQuery != null) {
+      // Resolving also parses an absolute URL so this is the only parse of the final URL.
+      url = baseUrl.resolve(urlWithQuery.toString());
+      if (url == null) {
+        throw new IllegalArgumentException(
+            "Malformed URL. Base: " + baseUrl + ", Relative: " + urlWithQuery);
+      }
+    } else if (resolvedUrl != null) {
+      url = resolvedUrl;
     } else {
-      // No query parameters triggered builder creation, just combine the relative URL and base URL.
+      // No query parameters were added, just combine the relative URL and base URL.
+      String relativeUrl = relativeUrl();
       //noinspection ConstantConditions Non-null if urlBuilder is null.
-      url = baseUrl.resolve(relativeUrl);
+      url =
+          urlCache != null
+              ? urlCache.resolve(baseUrl, relativeUrl)
+              : baseUrl.resolve(relativeUrl);
       if (url == null) {
         throw new IllegalArgumentException(
             "Malformed URL. Base: " + baseUrl + ", Relative: " + relativeUrl);
@@ -248,6 +385,8 @@ final class RequestBuilder {
       // Try to pull from one of the builders.
       if (formBuilder != null) {
         body = formBuilder.build();
+      } else if (streamingFormBuilder != null) {
+        body = streamingFormBuilder.build();
       } else if (multipartBuilder != null) {
         body = multipartBuilder.build();
       } else if (hasBody) {
@@ -261,11 +400,17 @@ final class RequestBuilder {
       if (body != null) {
         body = new ContentTypeOverridingRequestBody(body, contentType);
       } else {
-        headersBuilder.add("Content-Type", contentType.toString());
+        headersBuilder().add("Content-Type", contentType.toString());
       }
     }
 
-    return requestBuilder.url(url).headers(headersBuilder.build()).method(method, body);
+    Headers.Builder headersBuilder = this.headersBuilder;
+    if (headersBuilder != null) {
+      requestBuilder.headers(headersBuilder.build());
+    } else if (headers != null) {
+      requestBuilder.headers(headers);
+    }
+    return requestBuilder.url(url).method(method, body);
   }
 
   private static class ContentTypeOverridingRequestBody extends RequestBody {
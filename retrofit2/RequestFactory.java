@@ -18,15 +18,15 @@ package com.ownbranch.retrofit2;
 import static retrofit2.Utils.methodError;
 import static retrofit2.Utils.parameterError;
 
+import com.ownbranch.retrofit2.http.SaveTo;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.URI;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -74,32 +74,61 @@ final class RequestFactory {
   }
 
   private final Method method;
-  private final HttpUrl baseUrl;
   final String httpMethod;
   private final @Nullable String relativeUrl;
+  private final @Nullable UrlTemplate urlTemplate;
+  /** True if no parameter contributes to the request, so it can be built once per base URL. */
+  private final boolean isStatic;
+  private final boolean invocationTags;
+  private final @Nullable UrlCache urlCache;
   private final @Nullable Headers headers;
   private final @Nullable MediaType contentType;
   private final boolean hasBody;
   private final boolean isFormEncoded;
   private final boolean isMultipart;
+  private final boolean streamFormBody;
   private final ParameterHandler<?>[] parameterHandlers;
+  private final @Nullable CompiledParameterHandlers compiledHandlers;
   final boolean isKotlinSuspendFunction;
+  /** True if a {@link SaveTo @SaveTo} parameter gives the file to write the response body to. */
+  final boolean hasSaveTo;
 
   RequestFactory(Builder builder) {
     method = builder.method;
-    baseUrl = builder.retrofit.baseUrl;
     httpMethod = builder.httpMethod;
     relativeUrl = builder.relativeUrl;
+    urlTemplate = builder.urlTemplate;
     headers = builder.headers;
     contentType = builder.contentType;
     hasBody = builder.hasBody;
     isFormEncoded = builder.isFormEncoded;
     isMultipart = builder.isMultipart;
+    streamFormBody = builder.retrofit.streamFormBodies;
     parameterHandlers = builder.parameterHandlers;
     isKotlinSuspendFunction = builder.isKotlinSuspendFunction;
+    hasSaveTo = builder.gotSaveTo;
+    invocationTags = builder.retrofit.invocationTags;
+    urlCache = builder.gotUrl ? builder.retrofit.urlCache : null;
+    isStatic =
+        relativeUrl != null
+            && parameterHandlers.length == (isKotlinSuspendFunction ? 1 : 0);
+    compiledHandlers =
+        builder.retrofit.compileRequestFactories
+            ? CompiledParameterHandlers.compile(
+                parameterHandlers,
+                isKotlinSuspendFunction ? parameterHandlers.length - 1 : parameterHandlers.length)
+            : null;
   }
 
-  okhttp3.Request create(Object[] args) throws IOException {
+  /**
+   * Adds one {@link retrofit2.http.Headers @Headers} value. {@link ServiceMetadataStore} restores
+   * headers through this too, so a snapshot accepts exactly what parsing accepted.
+   */
+  static void addStaticHeader(Headers.Builder builder, String name, String value) {
+    builder.add(name, value);
+  }
+
+  okhttp3.Request create(Endpoint endpoint, Object[] args) throws IOException {
     @SuppressWarnings("unchecked") // It is an error to invoke a method with the wrong arg types.
     ParameterHandler<Object>[] handlers = (ParameterHandler<Object>[]) parameterHandlers;
 
@@ -113,29 +142,112 @@ final class RequestFactory {
               + ")");
     }
 
+    if (isStatic) {
+      okhttp3.Request request = staticRequest(endpoint);
+      if (!invocationTags) {
+        return request; // Requests are immutable so the prebuilt one can be shared.
+      }
+      return request
+          .newBuilder()
+          .tag(retrofit2.Invocation.class, new Invocation(method, Collections.emptyList()))
+          .build();
+    }
+
     retrofit2.RequestBuilder requestBuilder =
         new retrofit2.RequestBuilder(
             httpMethod,
-            baseUrl,
+            endpoint.baseUrl,
+            resolveStaticUrl(endpoint),
             relativeUrl,
+            urlTemplate,
+            urlCache,
             headers,
             contentType,
             hasBody,
             isFormEncoded,
-            isMultipart);
+            isMultipart,
+            streamFormBody);
 
     if (isKotlinSuspendFunction) {
       // The Continuation is the last parameter and the handlers array contains null at that index.
       argumentCount--;
     }
 
-    List<Object> argumentList = new ArrayList<>(argumentCount);
-    for (int p = 0; p < argumentCount; p++) {
-      argumentList.add(args[p]);
-      handlers[p].apply(requestBuilder, args[p]);
+    CompiledParameterHandlers compiledHandlers = this.compiledHandlers;
+    if (compiledHandlers != null) {
+      compiledHandlers.apply(requestBuilder, args);
+    } else {
+      for (int p = 0; p < argumentCount; p++) {
+        handlers[p].apply(requestBuilder, args[p]);
+      }
+    }
+
+    okhttp3.Request.Builder request = requestBuilder.get();
+    if (invocationTags) {
+      request.tag(retrofit2.Invocation.class, new Invocation(method, args, argumentCount));
     }
+    return request.build();
+  }
 
-    return requestBuilder.get().tag(retrofit2.Invocation.class, new Invocation(method, argumentList)).build();
+  /**
+   * Returns the relative URL resolved against the endpoint's base URL if it does not depend on any
+   * argument, or null. The result is kept on the endpoint for its later calls.
+   */
+  private @Nullable HttpUrl resolveStaticUrl(Endpoint endpoint) {
+    String relativeUrl = this.relativeUrl;
+    if (relativeUrl == null || urlTemplate != null) {
+      return null;
+    }
+    ResolvedUrl resolved = endpoint.resolvedUrls.get(this);
+    if (resolved != null) {
+      return resolved.url;
+    }
+    HttpUrl url = endpoint.baseUrl.resolve(relativeUrl);
+    if (url == null) {
+      return null; // Reported as malformed by RequestBuilder.
+    }
+    endpoint.resolvedUrls.putIfAbsent(this, new ResolvedUrl(url, null));
+    return url;
+  }
+
+  /**
+   * Returns the request of a {@linkplain #isStatic static} method for the endpoint's base URL,
+   * without an {@link Invocation} tag. The result is kept on the endpoint for its later calls.
+   */
+  private okhttp3.Request staticRequest(Endpoint endpoint) {
+    ResolvedUrl resolved = endpoint.resolvedUrls.get(this);
+    if (resolved != null && resolved.request != null) {
+      return resolved.request;
+    }
+    okhttp3.Request request =
+        new retrofit2.RequestBuilder(
+                httpMethod,
+                endpoint.baseUrl,
+                resolveStaticUrl(endpoint),
+                relativeUrl,
+                null,
+                null,
+                headers,
+                contentType,
+                hasBody,
+                isFormEncoded,
+                isMultipart,
+                streamFormBody)
+            .get()
+            .build();
+    endpoint.resolvedUrls.put(this, new ResolvedUrl(request.url(), request));
+    return request;
+  }
+
+  /** A static URL, and the static request if it was built, for one endpoint. */
+  static final class ResolvedUrl {
+    final HttpUrl url;
+    final @Nullable okhttp3.Request request;
+
+    ResolvedUrl(HttpUrl url, @Nullable okhttp3.Request request) {
+      this.url = url;
+      this.request = request;
+    }
   }
 
   /**
@@ -163,6 +275,7 @@ final class RequestFactory {
     boolean gotQueryName;
     boolean gotQueryMap;
     boolean gotUrl;
+    boolean gotSaveTo;
     @Nullable String httpMethod;
     boolean hasBody;
     boolean isFormEncoded;
@@ -171,6 +284,7 @@ final class RequestFactory {
     @Nullable Headers headers;
     @Nullable MediaType contentType;
     @Nullable Set<String> relativeUrlParamNames;
+    @Nullable UrlTemplate urlTemplate;
     @Nullable ParameterHandler<?>[] parameterHandlers;
     boolean isKotlinSuspendFunction;
 
@@ -183,26 +297,12 @@ final class RequestFactory {
     }
 
     RequestFactory build() {
-      for (Annotation annotation : methodAnnotations) {
-        parseMethodAnnotation(annotation);
-      }
-
-      if (httpMethod == null) {
-        throw methodError(method, "HTTP method annotation is required (e.g., @GET, @POST, etc.).");
-      }
-
-      if (!hasBody) {
-        if (isMultipart) {
-          throw methodError(
-              method,
-              "Multipart can only be specified on HTTP methods with request body (e.g., @POST).");
-        }
-        if (isFormEncoded) {
-          throw methodError(
-              method,
-              "FormUrlEncoded can only be specified on HTTP methods with "
-                  + "request body (e.g., @POST).");
-        }
+      Metadata metadata = retrofit.requestMetadata(method);
+      if (metadata != null) {
+        // Method annotations were parsed and validated when the snapshot was recorded.
+        metadata.applyTo(this);
+      } else {
+        parseMethodAnnotations();
       }
 
       int parameterCount = parameterAnnotationsArray.length;
@@ -225,9 +325,41 @@ final class RequestFactory {
         throw methodError(method, "Multipart method must contain at least one @Part.");
       }
 
+      if (gotPath) {
+        //noinspection ConstantConditions @Path requires a relative URL.
+        urlTemplate = UrlTemplate.parse(relativeUrl, PARAM_URL_REGEX);
+      }
+
+      if (metadata == null) {
+        retrofit.recordRequestMetadata(method, new Metadata(this));
+      }
       return new RequestFactory(this);
     }
 
+    private void parseMethodAnnotations() {
+      for (Annotation annotation : methodAnnotations) {
+        parseMethodAnnotation(annotation);
+      }
+
+      if (httpMethod == null) {
+        throw methodError(method, "HTTP method annotation is required (e.g., @GET, @POST, etc.).");
+      }
+
+      if (!hasBody) {
+        if (isMultipart) {
+          throw methodError(
+              method,
+              "Multipart can only be specified on HTTP methods with request body (e.g., @POST).");
+        }
+        if (isFormEncoded) {
+          throw methodError(
+              method,
+              "FormUrlEncoded can only be specified on HTTP methods with "
+                  + "request body (e.g., @POST).");
+        }
+      }
+    }
+
     private void parseMethodAnnotation(Annotation annotation) {
       if (annotation instanceof DELETE) {
         parseHttpMethodAndPath("DELETE", ((DELETE) annotation).value(), false);
@@ -316,7 +448,7 @@ final class RequestFactory {
             throw methodError(method, e, "Malformed content type: %s", headerValue);
           }
         } else {
-          builder.add(headerName, headerValue);
+          addStaticHeader(builder, headerName, headerValue);
         }
       }
       return builder.build();
@@ -423,6 +555,9 @@ final class RequestFactory {
         validatePathName(p, name);
 
         retrofit2.Converter<?, String> converter = retrofit.stringConverter(type, annotations);
+        if (isPrimitiveFormattable(type, converter)) {
+          return new ParameterHandler.PrimitivePath(method, p, name);
+        }
         return new ParameterHandler.Path<>(method, p, name, converter, path.encoded());
 
       } else if (annotation instanceof Query) {
@@ -454,6 +589,9 @@ final class RequestFactory {
           return new ParameterHandler.Query<>(name, converter, encoded).array();
         } else {
           retrofit2.Converter<?, String> converter = retrofit.stringConverter(type, annotations);
+          if (isPrimitiveFormattable(type, converter)) {
+            return new ParameterHandler.PrimitiveQuery(name, encoded);
+          }
           return new ParameterHandler.Query<>(name, converter, encoded);
         }
 
@@ -538,6 +676,9 @@ final class RequestFactory {
           return new ParameterHandler.Header<>(name, converter).array();
         } else {
           retrofit2.Converter<?, String> converter = retrofit.stringConverter(type, annotations);
+          if (isPrimitiveFormattable(type, converter)) {
+            return new ParameterHandler.PrimitiveHeader(name);
+          }
           return new ParameterHandler.Header<>(name, converter);
         }
 
@@ -810,6 +951,17 @@ final class RequestFactory {
         }
 
         return new ParameterHandler.Tag<>(tagType);
+
+      } else if (annotation instanceof SaveTo) {
+        // Compared by name so that older Android versions never load java.nio.file.Path.
+        if (!retrofit2.Utils.getRawType(type).getName().equals("java.nio.file.Path")) {
+          throw parameterError(method, p, "@SaveTo parameter type must be java.nio.file.Path.");
+        }
+        if (gotSaveTo) {
+          throw parameterError(method, p, "Multiple @SaveTo parameters found.");
+        }
+        gotSaveTo = true;
+        return new ParameterHandler.SaveTo(method, p, ((SaveTo) annotation).resume());
       }
 
       return null; // Not a Retrofit annotation.
@@ -850,6 +1002,22 @@ final class RequestFactory {
       return patterns;
     }
 
+    /**
+     * True if {@code type} is an {@code int}, {@code long} or {@code boolean}, primitive or boxed,
+     * and {@code converter} is the built-in {@code toString()} fallback. Such parameters are
+     * formatted by {@link ParameterHandler.Primitive} instead. Types claimed by a user converter
+     * factory keep that converter.
+     */
+    private static boolean isPrimitiveFormattable(Type type, Converter<?, String> converter) {
+      return converter == BuiltInConverters.ToStringConverter.INSTANCE
+          && (type == int.class
+              || type == long.class
+              || type == boolean.class
+              || type == Integer.class
+              || type == Long.class
+              || type == Boolean.class);
+    }
+
     private static Class<?> boxIfPrimitive(Class<?> type) {
       if (boolean.class == type) return Boolean.class;
       if (byte.class == type) return Byte.class;
@@ -862,4 +1030,62 @@ final class RequestFactory {
       return type;
     }
   }
+
+  /**
+   * The parts of a {@link RequestFactory} which are derived only from the method's own annotations.
+   * This is independent of the converters and base URL of any particular {@link Retrofit} so it can
+   * be {@linkplain ServiceMetadataStore persisted} and reused on later runs.
+   */
+  static final class Metadata {
+    final String httpMethod;
+    final boolean hasBody;
+    final boolean isFormEncoded;
+    final boolean isMultipart;
+    final @Nullable String relativeUrl;
+    final @Nullable Set<String> relativeUrlParamNames;
+    final @Nullable Headers headers;
+    final @Nullable MediaType contentType;
+
+    Metadata(
+        String httpMethod,
+        boolean hasBody,
+        boolean isFormEncoded,
+        boolean isMultipart,
+        @Nullable String relativeUrl,
+        @Nullable Set<String> relativeUrlParamNames,
+        @Nullable Headers headers,
+        @Nullable MediaType contentType) {
+      this.httpMethod = httpMethod;
+      this.hasBody = hasBody;
+      this.isFormEncoded = isFormEncoded;
+      this.isMultipart = isMultipart;
+      this.relativeUrl = relativeUrl;
+      this.relativeUrlParamNames = relativeUrlParamNames;
+      this.headers = headers;
+      this.contentType = contentType;
+    }
+
+    Metadata(Builder builder) {
+      this(
+          builder.httpMethod,
+          builder.hasBody,
+          builder.isFormEncoded,
+          builder.isMultipart,
+          builder.relativeUrl,
+          builder.relativeUrlParamNames,
+          builder.headers,
+          builder.contentType);
+    }
+
+    void applyTo(Builder builder) {
+      builder.httpMethod = httpMethod;
+      builder.hasBody = hasBody;
+      builder.isFormEncoded = isFormEncoded;
+      builder.isMultipart = isMultipart;
+      builder.relativeUrl = relativeUrl;
+      builder.relativeUrlParamNames = relativeUrlParamNames;
+      builder.headers = headers;
+      builder.contentType = contentType;
+    }
+  }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Memoizes the call adapters and converters that {@link Retrofit} resolves from its factories. A
+ * single cache is shared by every service method of a {@link Retrofit} instance, so identical
+ * type and annotation combinations walk the factory lists only once.
+ *
+ * <p>Failed lookups are not cached. The factories are consulted again, and throw again, on the
+ * next lookup.
+ */
+final class ResolutionCache {
+  static final int CALL_ADAPTER = 0;
+  static final int REQUEST_BODY_CONVERTER = 1;
+  static final int RESPONSE_BODY_CONVERTER = 2;
+  static final int STRING_CONVERTER = 3;
+
+  interface Resolver<T> {
+    T resolve();
+  }
+
+  private final ConcurrentHashMap<Key, Object> entries = new ConcurrentHashMap<>();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  <T> T get(
+      int kind,
+      Type type,
+      Annotation[] annotations,
+      @Nullable Annotation[] methodAnnotations,
+      Resolver<T> resolver) {
+    Key key = new Key(kind, type, annotations, methodAnnotations);
+    Object cached = entries.get(key);
+    if (cached != null) {
+      hitCount.incrementAndGet();
+      //noinspection unchecked Keys of each kind only map to values of that kind.
+      return (T) cached;
+    }
+    missCount.incrementAndGet();
+    T result = resolver.resolve();
+    entries.put(key, result);
+    return result;
+  }
+
+  CacheStats stats() {
+    return new CacheStats(hitCount.get(), missCount.get());
+  }
+
+  static final class Key {
+    private final int kind;
+    private final Type type;
+    private final Annotation[] annotations;
+    private final @Nullable Annotation[] methodAnnotations;
+    private final int hashCode;
+
+    Key(int kind, Type type, Annotation[] annotations, @Nullable Annotation[] methodAnnotations) {
+      this.kind = kind;
+      this.type = Utils.canonicalize(type);
+      this.annotations = annotations;
+      this.methodAnnotations = methodAnnotations;
+      this.hashCode =
+          31 * (31 * (31 * kind + this.type.hashCode()) + Arrays.hashCode(annotations))
+              + Arrays.hashCode(methodAnnotations);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) return true;
+      if (!(other instanceof Key)) return false;
+      Key that = (Key) other;
+      return kind == that.kind
+          && hashCode == that.hashCode
+          && (type == that.type || Utils.equals(type, that.type))
+          && Arrays.equals(annotations, that.annotations)
+          && Arrays.equals(methodAnnotations, that.methodAnnotations);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Reads whole response bodies into memory, within limits, for {@link ResponseBody} return types
+ * and error bodies.
+ *
+ * <p>Bodies larger than {@link #maxBodySize} fail. Bodies held in memory are charged against
+ * {@link #memoryBudget}, which is shared by every call, until they are closed or read to the end.
+ * Bodies larger than {@link #spillThreshold}, or which would exceed the memory budget, are written
+ * to a temporary file in {@link #spillDirectory} and read back through a memory mapping instead.
+ * Without a spill directory such bodies fail. Bodies which are garbage collected without being
+ * closed are released, and their files deleted, the next time a body is buffered.
+ *
+ * <p>In-memory bodies are held in okio segments, which return to okio's segment pool as they are
+ * read or once the body is closed.
+ *
+ * <p>Error bodies are handled according to {@link #errorBodyMode}. Only their first {@link
+ * #maxErrorBodySize} bytes are kept, so a large error page does not fail the call.
+ */
+final class ResponseBuffering {
+  private static final long SEGMENT_SIZE = 8192L;
+
+  final long maxBodySize;
+  final long memoryBudget;
+  final long spillThreshold;
+  final @Nullable File spillDirectory;
+  final ErrorBodyMode errorBodyMode;
+  final long maxErrorBodySize;
+
+  private final AtomicLong bytesInMemory = new AtomicLong();
+  private final AtomicLong bytesBuffered = new AtomicLong();
+  private final AtomicLong bytesSpilled = new AtomicLong();
+  private final AtomicLong spillCount = new AtomicLong();
+
+  /** Leases of bodies still open, so they are freed if their sources are garbage collected. */
+  private final Set<Abandoned> leases = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  private final ReferenceQueue<Source> abandonedSources = new ReferenceQueue<>();
+
+  ResponseBuffering(
+      long maxBodySize,
+      long memoryBudget,
+      long spillThreshold,
+      @Nullable File spillDirectory,
+      ErrorBodyMode errorBodyMode,
+      long maxErrorBodySize) {
+    this.maxBodySize = maxBodySize;
+    this.memoryBudget = memoryBudget;
+    this.spillThreshold = spillDirectory != null ? spillThreshold : Long.MAX_VALUE;
+    this.spillDirectory = spillDirectory;
+    this.errorBodyMode = errorBodyMode;
+    this.maxErrorBodySize = maxErrorBodySize;
+  }
+
+  BufferStats stats() {
+    return new BufferStats(
+        bytesInMemory.get(), bytesBuffered.get(), bytesSpilled.get(), spillCount.get());
+  }
+
+  /** Returns a copy of {@code body} which needs no further I/O. Does not close {@code body}. */
+  ResponseBody buffer(ResponseBody body) throws IOException {
+    freeAbandoned();
+    MediaType contentType = body.contentType();
+    long contentLength = body.contentLength();
+    if (contentLength > maxBodySize) {
+      throw tooLarge(contentLength);
+    }
+
+    BufferedSource source = body.source();
+    Buffer buffer = new Buffer();
+    long reserved = 0L;
+    try {
+      if (contentLength > spillThreshold) {
+        return spill(contentType, contentLength, buffer, source);
+      }
+      while (source.read(buffer, SEGMENT_SIZE) != -1L) {
+        long size = buffer.size();
+        if (size > maxBodySize) {
+          throw tooLarge(size);
+        }
+        if (size > spillThreshold || !reserve(size - reserved)) {
+          if (spillDirectory == null) {
+            throw new IOException(
+                "Buffered response bodies would exceed the memory budget of "
+                    + memoryBudget
+                    + " bytes");
+          }
+          release(reserved);
+          reserved = 0L;
+          return spill(contentType, contentLength, buffer, source);
+        }
+        reserved = size;
+      }
+    } catch (IOException | RuntimeException | Error e) {
+      release(reserved);
+      buffer.clear();
+      throw e;
+    }
+
+    bytesBuffered.addAndGet(buffer.size());
+    return new MemoryBody(contentType, contentLength, buffer, new Lease(reserved, null));
+  }
+
+  /** Returns the body for {@link Response#errorBody()}. Takes ownership of {@code body}. */
+  ResponseBody errorBody(ResponseBody body) throws IOException {
+    switch (errorBodyMode) {
+      case DISCARD:
+        MediaType contentType = body.contentType();
+        body.close();
+        return ResponseBody.create(contentType, ByteString.EMPTY);
+      case LAZY:
+        return truncate(body);
+      default:
+        try {
+          return buffer(truncate(body));
+        } finally {
+          body.close();
+        }
+    }
+  }
+
+  /** Returns a view of {@code body} which ends after {@link #maxErrorBodySize} bytes. */
+  private ResponseBody truncate(ResponseBody body) {
+    return maxErrorBodySize == Long.MAX_VALUE ? body : new TruncatedBody(body, maxErrorBodySize);
+  }
+
+  private IOException tooLarge(long size) {
+    return new ProtocolException(
+        "Response body of " + size + " bytes exceeds the limit of " + maxBodySize + " bytes");
+  }
+
+  private boolean reserve(long byteCount) {
+    if (memoryBudget == Long.MAX_VALUE) {
+      bytesInMemory.addAndGet(byteCount);
+      return true;
+    }
+    while (true) {
+      long inMemory = bytesInMemory.get();
+      if (inMemory + byteCount > memoryBudget) {
+        return false;
+      }
+      if (bytesInMemory.compareAndSet(inMemory, inMemory + byteCount)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(long byteCount) {
+    if (byteCount != 0L) {
+      bytesInMemory.addAndGet(-byteCount);
+    }
+  }
+
+  /** Frees the leases of bodies which were garbage collected without being closed. */
+  private void freeAbandoned() {
+    Reference<? extends Source> reference;
+    while ((reference = abandonedSources.poll()) != null) {
+      ((Abandoned) reference).lease.free();
+    }
+  }
+
+  /** Frees {@code lease} if {@code source} is garbage collected before the lease is freed. */
+  private void track(Source source, Lease lease) {
+    if (lease.bytes == 0L && lease.file == null) return; // Nothing to free.
+    Abandoned abandoned = new Abandoned(source, lease, abandonedSources);
+    lease.abandoned = abandoned;
+    leases.add(abandoned);
+  }
+
+  /** The budget and file held by one buffered body. */
+  final class Lease {
+    final long bytes;
+    final @Nullable File file;
+    private final AtomicBoolean freed = new AtomicBoolean();
+    volatile @Nullable Abandoned abandoned;
+
+    Lease(long bytes, @Nullable File file) {
+      this.bytes = bytes;
+      this.file = file;
+    }
+
+    void free() {
+      if (!freed.compareAndSet(false, true)) return;
+      release(bytes);
+      // Some platforms refuse while the file is mapped. Then it goes on exit.
+      if (file != null && !file.delete()) {
+        file.deleteOnExit();
+      }
+      Abandoned abandoned = this.abandoned;
+      if (abandoned != null) {
+        leases.remove(abandoned);
+        abandoned.clear();
+      }
+    }
+  }
+
+  /** Enqueued once a body's source is unreachable, so its lease can be freed. */
+  static final class Abandoned extends PhantomReference<Source> {
+    final Lease lease;
+
+    Abandoned(Source source, Lease lease, ReferenceQueue<Source> queue) {
+      super(source, queue);
+      this.lease = lease;
+    }
+  }
+
+  /** Writes {@code buffer} and the rest of {@code source} to a file and maps it. */
+  private ResponseBody spill(
+      @Nullable MediaType contentType, long contentLength, Buffer buffer, BufferedSource source)
+      throws IOException {
+    //noinspection ConstantConditions Only called with a spill directory.
+    File file = File.createTempFile("retrofit-", ".body", spillDirectory);
+    try {
+      long size;
+      try (BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+        size = buffer.size();
+        sink.write(buffer, size);
+        long read;
+        while ((read = source.read(buffer, SEGMENT_SIZE)) != -1L) {
+          size += read;
+          if (size > maxBodySize) {
+            throw tooLarge(size);
+          }
+          sink.write(buffer, read); // Moves segments rather than copying them.
+        }
+      }
+
+      Source fileSource;
+      if (size <= Integer.MAX_VALUE) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+          // The mapping stays valid after its channel is closed.
+          ByteBuffer mapped =
+              randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, size);
+          fileSource = new ByteBufferSource(mapped);
+        }
+      } else {
+        fileSource = Okio.source(file); // Too large for one mapping.
+      }
+
+      bytesSpilled.addAndGet(size);
+      spillCount.incrementAndGet();
+      return new SpilledBody(contentType, contentLength, fileSource, new Lease(0L, file));
+    } catch (IOException | RuntimeException | Error e) {
+      //noinspection ResultOfMethodCallIgnored Best effort.
+      file.delete();
+      throw e;
+    }
+  }
+
+  /**
+   * A body in memory, whose bytes count against the budget until it is closed, exhausted or garbage
+   * collected.
+   */
+  final class MemoryBody extends ResponseBody {
+    private final @Nullable MediaType contentType;
+    private final long contentLength;
+    private final BufferedSource source;
+
+    MemoryBody(@Nullable MediaType contentType, long contentLength, Buffer buffer, Lease lease) {
+      this.contentType = contentType;
+      this.contentLength = contentLength;
+      this.source =
+          Okio.buffer(
+              new ForwardingSource(buffer) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                  long read = super.read(sink, byteCount);
+                  if (read == -1L) {
+                    lease.free();
+                  }
+                  return read;
+                }
+
+                @Override
+                public void close() {
+                  lease.free();
+                  buffer.clear(); // Return any unread segments to the pool.
+                }
+              });
+      track(source, lease);
+    }
+
+    @Override
+    public @Nullable MediaType contentType() {
+      return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+
+  /** A body in a temporary file, which is deleted once the body is closed or garbage collected. */
+  final class SpilledBody extends ResponseBody {
+    private final @Nullable MediaType contentType;
+    private final long contentLength;
+    private final BufferedSource source;
+
+    SpilledBody(
+        @Nullable MediaType contentType, long contentLength, Source fileSource, Lease lease) {
+      this.contentType = contentType;
+      this.contentLength = contentLength;
+      this.source =
+          Okio.buffer(
+              new ForwardingSource(fileSource) {
+                @Override
+                public void close() throws IOException {
+                  try {
+                    super.close();
+                  } finally {
+                    lease.free();
+                  }
+                }
+              });
+      track(source, lease);
+    }
+
+    @Override
+    public @Nullable MediaType contentType() {
+      return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+
+  /** The first {@code limit} bytes of a body. Closing it closes the whole body. */
+  static final class TruncatedBody extends ResponseBody {
+    private final @Nullable MediaType contentType;
+    private final long contentLength;
+    private final BufferedSource source;
+
+    TruncatedBody(ResponseBody body, long limit) {
+      this.contentType = body.contentType();
+      long bodyLength = body.contentLength();
+      this.contentLength = bodyLength != -1L ? Math.min(bodyLength, limit) : -1L;
+      this.source =
+          Okio.buffer(
+              new ForwardingSource(body.source()) {
+                private long remaining = limit;
+
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                  if (remaining == 0L) return -1L;
+                  long read = super.read(sink, Math.min(byteCount, remaining));
+                  if (read != -1L) {
+                    remaining -= read;
+                  }
+                  return read;
+                }
+              });
+    }
+
+    @Override
+    public @Nullable MediaType contentType() {
+      return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+
+  static final class ByteBufferSource implements Source {
+    private final ByteBuffer buffer;
+
+    ByteBufferSource(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      int remaining = buffer.remaining();
+      if (remaining == 0) return -1L;
+      int count = (int) Math.min(byteCount, remaining);
+      ByteBuffer chunk = buffer.duplicate();
+      chunk.limit(chunk.position() + count);
+      while (chunk.hasRemaining()) {
+        sink.write(chunk);
+      }
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+import okhttp3.Request;
+
+/**
+ * An in-memory cache of converted response bodies for {@code GET} service methods. Unlike
+ * OkHttp's {@link okhttp3.Cache}, which stores bytes that must be converted again on every hit,
+ * this stores the converted object itself.
+ *
+ * <pre><code>
+ * Retrofit retrofit = new Retrofit.Builder()
+ *     .baseUrl("https://example.com/")
+ *     .responseCache(ResponseCache.create(500))
+ *     .build();
+ * </code></pre>
+ *
+ * <p>Only {@code 200} responses with a {@code Cache-Control: max-age} or an {@code ETag} are
+ * stored. While an entry is within its max-age, calls return it without touching the network.
+ * Once it expires, calls which have an {@code ETag} to offer send {@code If-None-Match} and a
+ * {@code 304 Not Modified} response returns the cached body without converting anything. Responses
+ * marked {@code no-store} or {@code Vary: *} are never stored, and requests marked {@code
+ * no-store} bypass the cache. Requests marked {@code no-cache} always revalidate. Methods annotated
+ * {@link com.ownbranch.retrofit2.http.StaleWhileRevalidate @StaleWhileRevalidate} may also be
+ * answered with an expired body while it is refreshed in the background.
+ *
+ * <p>Entries are keyed by URL, the request headers named by the response's {@code Vary} header,
+ * and the service method's response converter, so methods with different response types never
+ * share an entry. Every call which hits an entry receives the same body instance, so use this only
+ * with response types which callers treat as immutable. Entries are not keyed by credentials: call
+ * {@link #evictAll()} when the user changes.
+ *
+ * <p>One cache may be shared by several {@link Retrofit} instances.
+ */
+public final class ResponseCache {
+  /** Computes the cost of holding a converted body against a weight limit. */
+  public interface Weigher {
+    /**
+     * Returns the non-negative weight of {@code body}, which was converted from {@code
+     * rawResponse}. Its body cannot be read, but its headers such as {@code Content-Length} can.
+     */
+    long weigh(@Nullable Object body, okhttp3.Response rawResponse);
+  }
+
+  /** A cache holding up to {@code maxEntries} bodies, evicting the least recently used. */
+  public static ResponseCache create(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries <= 0: " + maxEntries);
+    }
+    return new ResponseCache(maxEntries, (body, rawResponse) -> 1L);
+  }
+
+  /**
+   * A cache holding bodies up to a total weight of {@code maxWeight}, evicting the least recently
+   * used. Bodies heavier than {@code maxWeight} on their own are not stored.
+   */
+  public static ResponseCache create(long maxWeight, Weigher weigher) {
+    if (maxWeight <= 0L) {
+      throw new IllegalArgumentException("maxWeight <= 0: " + maxWeight);
+    }
+    Objects.requireNonNull(weigher, "weigher == null");
+    return new ResponseCache(maxWeight, weigher);
+  }
+
+  private final long maxWeight;
+  private final Weigher weigher;
+
+  @GuardedBy("this")
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  @GuardedBy("this")
+  private long weight;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  private ResponseCache(long maxWeight, Weigher weigher) {
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  /**
+   * Hit and miss counts. Hits are calls answered with a cached body, whether it was fresh or
+   * revalidated with a {@code 304}. Misses are calls whose body had to be converted.
+   */
+  public CacheStats stats() {
+    return new CacheStats(hitCount.get(), missCount.get());
+  }
+
+  /** The total weight of the stored bodies. */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  /** The number of stored bodies. */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Removes every stored body. */
+  public synchronized void evictAll() {
+    entries.clear();
+    weight = 0L;
+  }
+
+  /**
+   * Looks up {@code request}, or returns null if the request bypasses the cache. {@code owner}
+   * identifies the converter whose bodies may be returned. Expired bodies may be returned for up
+   * to {@code staleWhileRevalidateMillis} while they are refreshed.
+   */
+  @Nullable
+  Lookup lookup(Object owner, Request request, long staleWhileRevalidateMillis) {
+    if (!request.method().equals("GET") || request.cacheControl().noStore()) {
+      return null;
+    }
+    Key key = new Key(owner, request.url().toString());
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+    }
+    if (entry != null && !entry.matchesVary(request)) {
+      entry = null;
+    }
+    return new Lookup(this, key, request, entry, staleWhileRevalidateMillis);
+  }
+
+  void store(Key key, Request request, @Nullable Object body, okhttp3.Response rawResponse) {
+    CacheControl cacheControl = rawResponse.cacheControl();
+    String etag = rawResponse.header("ETag");
+    Set<String> varyNames = varyNames(rawResponse);
+    if (cacheControl.noStore()
+        || varyNames.contains("*")
+        || (cacheControl.maxAgeSeconds() <= 0 && etag == null)) {
+      remove(key);
+      return;
+    }
+
+    long entryWeight = weigher.weigh(body, rawResponse);
+    if (entryWeight < 0L) {
+      throw new IllegalStateException("Weigher returned a negative weight: " + entryWeight);
+    }
+    Headers requestHeaders = request.headers();
+    Headers.Builder varyHeaders = new Headers.Builder();
+    for (int i = 0, size = varyNames.isEmpty() ? 0 : requestHeaders.size(); i < size; i++) {
+      if (varyNames.contains(requestHeaders.name(i))) {
+        varyHeaders.add(requestHeaders.name(i), requestHeaders.value(i));
+      }
+    }
+    Entry entry =
+        new Entry(
+            body,
+            rawResponse,
+            expiresAtMillis(rawResponse),
+            etag,
+            varyNames,
+            varyHeaders.build(),
+            entryWeight);
+    put(key, entry);
+  }
+
+  /** Returns the response to a {@code 304} of {@code entry}, and records its new freshness. */
+  okhttp3.Response revalidated(Key key, Entry entry, okhttp3.Response networkResponse) {
+    Headers.Builder headers = entry.rawResponse.headers().newBuilder();
+    Headers networkHeaders = networkResponse.headers();
+    for (int i = 0, size = networkHeaders.size(); i < size; i++) {
+      String name = networkHeaders.name(i);
+      // Content headers of a 304 describe nothing, so keep those of the stored response.
+      if (!name.regionMatches(true, 0, "Content-", 0, 8)) {
+        headers.set(name, networkHeaders.value(i));
+      }
+    }
+    okhttp3.Response rawResponse =
+        entry
+            .rawResponse
+            .newBuilder()
+            .request(networkResponse.request())
+            .headers(headers.build())
+            .sentRequestAtMillis(networkResponse.sentRequestAtMillis())
+            .receivedResponseAtMillis(networkResponse.receivedResponseAtMillis())
+            .build();
+
+    CacheControl cacheControl = rawResponse.cacheControl();
+    if (cacheControl.noStore()) {
+      remove(key);
+    } else {
+      String etag = rawResponse.header("ETag");
+      Entry refreshed =
+          new Entry(
+              entry.body,
+              rawResponse,
+              expiresAtMillis(rawResponse),
+              etag,
+              entry.varyNames,
+              entry.varyHeaders,
+              entry.weight);
+      synchronized (this) {
+        if (entries.get(key) == entry) { // Don't replace an entry stored by a concurrent call.
+          entries.put(key, refreshed);
+        }
+      }
+    }
+    return rawResponse;
+  }
+
+  private synchronized void put(Key key, Entry entry) {
+    if (entry.weight > maxWeight) {
+      remove(key);
+      return;
+    }
+    Entry previous = entries.put(key, entry);
+    if (previous != null) {
+      weight -= previous.weight;
+    }
+    weight += entry.weight;
+
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (weight > maxWeight) {
+      Entry evicted = eldest.next();
+      eldest.remove();
+      weight -= evicted.weight;
+    }
+  }
+
+  private synchronized void remove(Key key) {
+    Entry removed = entries.remove(key);
+    if (removed != null) {
+      weight -= removed.weight;
+    }
+  }
+
+  private static long expiresAtMillis(okhttp3.Response rawResponse) {
+    CacheControl cacheControl = rawResponse.cacheControl();
+    if (cacheControl.noCache() || cacheControl.maxAgeSeconds() <= 0) {
+      return 0L; // Always revalidate.
+    }
+    long ageSeconds = 0L;
+    String age = rawResponse.header("Age");
+    if (age != null) {
+      try {
+        ageSeconds = Math.max(0L, Long.parseLong(age));
+      } catch (NumberFormatException ignored) {
+      }
+    }
+    return rawResponse.receivedResponseAtMillis()
+        + (cacheControl.maxAgeSeconds() - ageSeconds) * 1000L;
+  }
+
+  /** Returns the request header names from the response's {@code Vary} header. */
+  private static Set<String> varyNames(okhttp3.Response rawResponse) {
+    Set<String> result = Collections.emptySet();
+    for (String vary : rawResponse.headers("Vary")) {
+      for (String name : vary.split(",")) {
+        name = name.trim();
+        if (name.isEmpty()) continue;
+        if (result.isEmpty()) {
+          result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        }
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  static final class Key {
+    private final Object owner;
+    private final String url;
+
+    Key(Object owner, String url) {
+      this.owner = owner;
+      this.url = url;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) return false;
+      Key that = (Key) other;
+      return owner == that.owner && url.equals(that.url);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(owner) + url.hashCode();
+    }
+  }
+
+  static final class Entry {
+    final @Nullable Object body;
+    /** The response the body was converted from, without its body. */
+    final okhttp3.Response rawResponse;
+
+    final long expiresAtMillis;
+    final @Nullable String etag;
+    final Set<String> varyNames;
+    /** The values of {@link #varyNames} in the request which the body was converted for. */
+    final Headers varyHeaders;
+
+    final long weight;
+    /** True while a call is refreshing this entry after serving it stale. */
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(
+        @Nullable Object body,
+        okhttp3.Response rawResponse,
+        long expiresAtMillis,
+        @Nullable String etag,
+        Set<String> varyNames,
+        Headers varyHeaders,
+        long weight) {
+      this.body = body;
+      this.rawResponse = rawResponse;
+      this.expiresAtMillis = expiresAtMillis;
+      this.etag = etag;
+      this.varyNames = varyNames;
+      this.varyHeaders = varyHeaders;
+      this.weight = weight;
+    }
+
+    boolean matchesVary(Request request) {
+      for (String name : varyNames) {
+        if (!varyHeaders.values(name).equals(request.headers(name))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean isFresh(Request request, long nowMillis) {
+      CacheControl cacheControl = request.cacheControl();
+      if (cacheControl.noCache()) return false;
+      long expiresAtMillis = this.expiresAtMillis;
+      if (cacheControl.maxAgeSeconds() != -1) {
+        expiresAtMillis =
+            Math.min(
+                expiresAtMillis,
+                rawResponse.receivedResponseAtMillis() + cacheControl.maxAgeSeconds() * 1000L);
+      }
+      return nowMillis < expiresAtMillis;
+    }
+
+    boolean isServableStale(Request request, long nowMillis, long staleWhileRevalidateMillis) {
+      return staleWhileRevalidateMillis > 0L
+          && expiresAtMillis != 0L // Must always be revalidated.
+          && !request.cacheControl().noCache()
+          && nowMillis < expiresAtMillis + staleWhileRevalidateMillis;
+    }
+  }
+
+  /** The cache state of one call, from creating its request until parsing its response. */
+  static final class Lookup {
+    private final ResponseCache cache;
+    private final Key key;
+    private final Request original;
+    private final @Nullable Entry entry;
+    private final boolean fresh;
+    private final boolean stale;
+    /**
+     * True if this lookup added {@code If-None-Match}. A {@code 304} to a condition the caller
+     * supplied refers to the caller's ETag, not to the entry.
+     */
+    private final boolean revalidating;
+    /** The request to send, which is conditional when there is an entry to revalidate. */
+    final Request request;
+
+    Lookup(
+        ResponseCache cache,
+        Key key,
+        Request request,
+        @Nullable Entry entry,
+        long staleWhileRevalidateMillis) {
+      this.cache = cache;
+      this.key = key;
+      this.original = request;
+      this.entry = entry;
+      long nowMillis = System.currentTimeMillis();
+      this.fresh = entry != null && entry.isFresh(request, nowMillis);
+      this.stale =
+          !fresh
+              && entry != null
+              && entry.isServableStale(request, nowMillis, staleWhileRevalidateMillis);
+      this.revalidating =
+          !fresh && entry != null && entry.etag != null && request.header("If-None-Match") == null;
+      //noinspection ConstantConditions Non-null if revalidating.
+      this.request =
+          revalidating ? request.newBuilder().header("If-None-Match", entry.etag).build() : request;
+    }
+
+    /**
+     * Returns the cached response if it can be used without a network exchange, either because it
+     * is fresh or because it may be served stale.
+     */
+    @Nullable
+    Response<?> cachedResponse() {
+      Entry entry = this.entry;
+      if ((!fresh && !stale) || entry == null) return null;
+      cache.hitCount.incrementAndGet();
+      return Response.success(entry.body, entry.rawResponse.newBuilder().request(request).build());
+    }
+
+    /**
+     * Returns true if the caller served a stale entry and must refresh it. Only one caller at a
+     * time is told to, until it calls {@link #refreshed()}.
+     */
+    boolean claimRefresh() {
+      Entry entry = this.entry;
+      return stale && entry != null && entry.refreshing.compareAndSet(false, true);
+    }
+
+    /** Lets another call refresh this entry if it is still stale. */
+    void refreshed() {
+      Entry entry = this.entry;
+      if (entry != null) {
+        entry.refreshing.set(false);
+      }
+    }
+
+    /**
+     * Returns the cached response if {@code rawResponse} is a {@code 304} to this lookup's
+     * conditional request, or null if it must be parsed as usual.
+     */
+    @Nullable
+    Response<?> notModified(okhttp3.Response rawResponse) {
+      Entry entry = this.entry;
+      if (rawResponse.code() != 304 || entry == null || !revalidating) {
+        return null;
+      }
+      cache.hitCount.incrementAndGet();
+      return Response.success(entry.body, cache.revalidated(key, entry, rawResponse));
+    }
+
+    /** Records a body converted from {@code rawResponse}. */
+    void converted(@Nullable Object body, okhttp3.Response rawResponse) {
+      cache.missCount.incrementAndGet();
+      if (rawResponse.code() == 200) {
+        cache.store(key, original, body, rawResponse);
+      }
+    }
+  }
+}
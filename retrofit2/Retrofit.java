@@ -19,8 +19,12 @@ import static java.util.Collections.unmodifiableList;
 
 import com.ownbranch.retrofit2.api.TestApiService;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
@@ -28,13 +32,17 @@ import java.lang.reflect.Type;
 import java.net.URL;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import javax.annotation.Nullable;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
@@ -70,16 +78,57 @@ import retrofit2.http.Url;
  * @author Jake Wharton (jw@squareup.com)
  */
 public final class Retrofit {
-  private final Map<Method, ServiceMethod<?>> serviceMethodCache = new ConcurrentHashMap<>();
+  static final String GENERATED_SUFFIX = "_Retrofit";
+  private static final Object NO_GENERATED_IMPLEMENTATION = new Object();
+  /** Service interfaces to their generated constructor, without keeping either class loaded. */
+  private static final ClassCache<Object> generatedConstructorCache =
+      new ClassCache<Object>() {
+        @Override
+        Object compute(Class<?> service) {
+          return findGeneratedConstructor(service);
+        }
+      };
+
+  /**
+   * Method to {@link ServiceMethod} cache. Values are either a parsed {@link ServiceMethod}, or a
+   * lock object held by the thread currently parsing that method. This lets unrelated methods parse
+   * concurrently while callers of the same method wait for a single parse.
+   *
+   * <p>Parsed methods do not depend on the base URL, so instances created by {@link #newBuilder()}
+   * which change nothing else share this map with the instance they were created from, unless
+   * {@linkplain Builder#shareServiceMethods sharing} is disabled. Shared methods keep the
+   * converters and call adapters resolved by the instance which parsed them.
+   */
+  private final ConcurrentHashMap<Method, Object> serviceMethodCache;
+
+  /** Method-level metadata loaded from or destined for {@link #serviceMetadataStore}. */
+  private final ConcurrentHashMap<Method, RequestFactory.Metadata> requestMetadata =
+      new ConcurrentHashMap<>();
+
+  /** Interfaces whose snapshot has been loaded, mapped to whether one was present and current. */
+  private final ConcurrentHashMap<Class<?>, Boolean> loadedMetadata = new ConcurrentHashMap<>();
 
   final okhttp3.Call.Factory callFactory;
   final HttpUrl baseUrl;
+  /** The base URL, and what this instance's methods resolved against it. */
+  final Endpoint endpoint;
   final List<Converter.Factory> converterFactories;
   final int defaultConverterFactoriesSize;
   final List<CallAdapter.Factory> callAdapterFactories;
   final int defaultCallAdapterFactoriesSize;
   final @Nullable Executor callbackExecutor;
   final boolean validateEagerly;
+  final @Nullable ForkJoinPool validationPool;
+  final @Nullable ValidationListener validationListener;
+  final @Nullable ServiceMetadataStore serviceMetadataStore;
+  final boolean compileRequestFactories;
+  final boolean invocationTags;
+  final boolean streamFormBodies;
+  final @Nullable ResolutionCache resolutionCache;
+  final @Nullable UrlCache urlCache;
+  final @Nullable CallCoalescer callCoalescer;
+  final @Nullable ResponseCache responseCache;
+  final ResponseBuffering responseBuffering;
 
   Retrofit(
       okhttp3.Call.Factory callFactory,
@@ -89,15 +138,41 @@ public final class Retrofit {
       List<CallAdapter.Factory> callAdapterFactories,
       int defaultCallAdapterFactoriesSize,
       @Nullable Executor callbackExecutor,
-      boolean validateEagerly) {
+      boolean validateEagerly,
+      @Nullable ForkJoinPool validationPool,
+      @Nullable ValidationListener validationListener,
+      @Nullable ServiceMetadataStore serviceMetadataStore,
+      boolean compileRequestFactories,
+      boolean invocationTags,
+      boolean streamFormBodies,
+      boolean memoizeResolution,
+      @Nullable UrlCache urlCache,
+      @Nullable CallCoalescer callCoalescer,
+      @Nullable ResponseCache responseCache,
+      ResponseBuffering responseBuffering,
+      @Nullable ConcurrentHashMap<Method, Object> sharedServiceMethodCache) {
+    this.serviceMethodCache =
+        sharedServiceMethodCache != null ? sharedServiceMethodCache : new ConcurrentHashMap<>();
     this.callFactory = callFactory;
     this.baseUrl = baseUrl;
+    this.endpoint = new Endpoint(baseUrl);
     this.converterFactories = converterFactories; // Copy+unmodifiable at call site.
     this.defaultConverterFactoriesSize = defaultConverterFactoriesSize;
     this.callAdapterFactories = callAdapterFactories; // Copy+unmodifiable at call site.
     this.defaultCallAdapterFactoriesSize = defaultCallAdapterFactoriesSize;
     this.callbackExecutor = callbackExecutor;
     this.validateEagerly = validateEagerly;
+    this.validationPool = validationPool;
+    this.validationListener = validationListener;
+    this.serviceMetadataStore = serviceMetadataStore;
+    this.compileRequestFactories = compileRequestFactories;
+    this.invocationTags = invocationTags;
+    this.streamFormBodies = streamFormBodies;
+    this.resolutionCache = memoizeResolution ? new ResolutionCache() : null;
+    this.urlCache = urlCache;
+    this.callCoalescer = callCoalescer;
+    this.responseCache = responseCache;
+    this.responseBuffering = responseBuffering;
   }
 
   /**
@@ -152,6 +227,10 @@ public final class Retrofit {
   //最核心模块
   public <T> T create(final Class<T> service) {
     validateServiceInterface(service);
+    T generated = createGenerated(service);
+    if (generated != null) {
+      return generated;
+    }
     return (T)
             // 动态代理，类是在运行的时候创建的
         Proxy.newProxyInstance(
@@ -176,7 +255,7 @@ public final class Retrofit {
                 retrofit2.Platform platform = retrofit2.Platform.get();
                 return platform.isDefaultMethod(method)
                     ? platform.invokeDefaultMethod(method, service, proxy, args)
-                    : loadServiceMethod(method).invoke(args);
+                    : loadServiceMethod(method).invoke(endpoint, args);
                 // loadServiceMethod 核心代码
 
               }
@@ -201,7 +280,7 @@ public final class Retrofit {
         retrofit2.Platform platform = retrofit2.Platform.get();
         return platform.isDefaultMethod(method)
                 ? platform.invokeDefaultMethod(method, service, proxy, args)
-                : loadServiceMethod(method).invoke(args);
+                : loadServiceMethod(method).invoke(endpoint, args);
       }
     };
 
@@ -216,6 +295,89 @@ public final class Retrofit {
     }
   }
 
+  /**
+   * Returns an instance of the implementation generated for {@code service} by {@link
+   * com.ownbranch.retrofit2.processor.RetrofitServiceProcessor}, or null if none was generated.
+   */
+  private @Nullable <T> T createGenerated(Class<T> service) {
+    Object constructor = generatedConstructorCache.get(service);
+    if (constructor == NO_GENERATED_IMPLEMENTATION) {
+      return null;
+    }
+    try {
+      return service.cast(((Constructor<?>) constructor).newInstance(this));
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException("Unable to create " + service.getName(), cause);
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new IllegalStateException("Unable to create " + service.getName(), e);
+    }
+  }
+
+  private static Object findGeneratedConstructor(Class<?> service) {
+    String name = generatedImplementationName(service.getName());
+    try {
+      Class<?> generated = Class.forName(name, false, service.getClassLoader());
+      if (!service.isAssignableFrom(generated)) {
+        return NO_GENERATED_IMPLEMENTATION;
+      }
+      return generated.getConstructor(Retrofit.class);
+    } catch (ClassNotFoundException | NoSuchMethodException ignored) {
+      return NO_GENERATED_IMPLEMENTATION;
+    }
+  }
+
+  /**
+   * The binary name of the generated implementation for the interface named {@code serviceName}.
+   * Nested interfaces flatten their enclosing names with underscores, e.g. {@code Outer$Api}
+   * becomes {@code Outer_Api_Retrofit}.
+   */
+  static String generatedImplementationName(String serviceName) {
+    int lastDot = serviceName.lastIndexOf('.');
+    return serviceName.substring(0, lastDot + 1)
+        + serviceName.substring(lastDot + 1).replace('$', '_')
+        + GENERATED_SUFFIX;
+  }
+
+  /**
+   * Binds the interface method {@code service.name(parameterTypes)} to this instance. This is
+   * called by generated service implementations once per method so that each call can skip the
+   * reflection done by the {@link Proxy} returned from {@link #create}.
+   *
+   * @throws IllegalArgumentException if {@code service} does not declare the method.
+   */
+  public BoundServiceMethod bindServiceMethod(
+      Class<?> service, String name, Class<?>... parameterTypes) {
+    return bindServiceMethod(serviceMethod(service, name, parameterTypes));
+  }
+
+  /**
+   * Binds the interface method {@code method} to this instance. Generated service implementations
+   * look up their methods once with {@link #serviceMethod} and bind them for each instance.
+   */
+  public BoundServiceMethod bindServiceMethod(Method method) {
+    Objects.requireNonNull(method, "method == null");
+    return new BoundServiceMethod(this, method);
+  }
+
+  /**
+   * Returns the interface method {@code service.name(parameterTypes)}.
+   *
+   * @throws IllegalArgumentException if {@code service} does not declare the method.
+   */
+  public static Method serviceMethod(Class<?> service, String name, Class<?>... parameterTypes) {
+    Objects.requireNonNull(service, "service == null");
+    Objects.requireNonNull(name, "name == null");
+    try {
+      return service.getDeclaredMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(
+          service.getName() + " does not declare method " + name, e);
+    }
+  }
+
   private void validateServiceInterface(Class<?> service) {
     if (!service.isInterface()) {
       throw new IllegalArgumentException("API declarations must be interfaces.");
@@ -241,73 +403,197 @@ public final class Retrofit {
     // 原因是api接口初次调用的时候，会被初始化，初始化就是对方法的验证
     // 所以在retrofit.create的时候，会进行验证，验证api创建的时候，是否有问题
     // 初始化有反射，所以一开始就验证，有耗时风险
+    boolean hasCurrentMetadata = loadServiceMetadata(service);
+
     if (validateEagerly) {
       retrofit2.Platform platform = retrofit2.Platform.get();
+      List<Method> methods = new ArrayList<>();
       for (Method method : service.getDeclaredMethods()) {
         // 是否是实现了默认方法，静态方法，Java8能支持的原因
         if (!platform.isDefaultMethod(method) && !Modifier.isStatic(method.getModifiers())) {
-          loadServiceMethod(method);
+          methods.add(method);
         }
       }
+      if (validationPool != null) {
+        validateInParallel(service, methods, validationPool);
+      } else {
+        for (Method method : methods) {
+          Throwable failure = validateMethod(method);
+          if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+          if (failure != null) throw (Error) failure;
+        }
+      }
+      if (!hasCurrentMetadata) {
+        saveServiceMetadata(service, methods);
+      }
+    }
+  }
+
+  /**
+   * Loads the persisted method metadata for {@code service} if a {@linkplain
+   * Builder#serviceMetadataDirectory store} is configured. Returns true if a current snapshot was
+   * found.
+   */
+  private boolean loadServiceMetadata(Class<?> service) {
+    ServiceMetadataStore store = serviceMetadataStore;
+    if (store == null) {
+      return false;
+    }
+    Boolean loaded = loadedMetadata.get(service);
+    if (loaded == null) {
+      Map<Method, RequestFactory.Metadata> metadata = store.load(service);
+      if (metadata != null) {
+        requestMetadata.putAll(metadata);
+      }
+      loaded = metadata != null;
+      loadedMetadata.put(service, loaded);
+    }
+    return loaded;
+  }
+
+  /** Persists the metadata recorded while eagerly validating {@code methods} of {@code service}. */
+  private void saveServiceMetadata(Class<?> service, List<Method> methods) {
+    ServiceMetadataStore store = serviceMetadataStore;
+    if (store == null) {
+      return;
+    }
+    Map<Method, RequestFactory.Metadata> metadata = new LinkedHashMap<>();
+    for (Method method : methods) {
+      RequestFactory.Metadata methodMetadata = requestMetadata.get(method);
+      if (methodMetadata == null) {
+        return; // Parsed before the store was consulted. Leave it for the next run.
+      }
+      metadata.put(method, methodMetadata);
+    }
+    try {
+      store.save(service, metadata);
+      loadedMetadata.put(service, true);
+    } catch (IOException ignored) {
+      // The snapshot is only an optimization. The next run will parse and try again.
     }
   }
 
+  /** Returns the persisted method-level metadata for {@code method}, or null if there is none. */
+  @Nullable
+  RequestFactory.Metadata requestMetadata(Method method) {
+    return serviceMetadataStore != null ? requestMetadata.get(method) : null;
+  }
+
+  /** Remembers freshly-parsed {@code metadata} so it can be persisted by eager validation. */
+  void recordRequestMetadata(Method method, RequestFactory.Metadata metadata) {
+    if (serviceMetadataStore != null) {
+      requestMetadata.put(method, metadata);
+    }
+  }
+
+  /**
+   * Parses all {@code methods} concurrently on {@code pool}. Rather than stopping at the first
+   * invalid method, every failure is collected into a single exception.
+   */
+  private void validateInParallel(Class<?> service, List<Method> methods, ForkJoinPool pool) {
+    List<ForkJoinTask<Throwable>> tasks = new ArrayList<>(methods.size());
+    for (Method method : methods) {
+      tasks.add(pool.submit(() -> validateMethod(method)));
+    }
+
+    List<Throwable> failures = new ArrayList<>();
+    for (ForkJoinTask<Throwable> task : tasks) {
+      Throwable failure = task.join();
+      if (failure != null) {
+        failures.add(failure);
+      }
+    }
+    if (failures.isEmpty()) {
+      return;
+    }
+    if (failures.size() == 1 && failures.get(0) instanceof RuntimeException) {
+      throw (RuntimeException) failures.get(0);
+    }
+
+    StringBuilder message =
+        new StringBuilder()
+            .append(failures.size())
+            .append(" methods of ")
+            .append(service.getName())
+            .append(" failed validation:");
+    for (Throwable failure : failures) {
+      String failureMessage = String.valueOf(failure.getMessage());
+      message.append("\n  * ").append(failureMessage.replace("\n", "\n    "));
+    }
+    IllegalArgumentException exception = new IllegalArgumentException(message.toString());
+    for (Throwable failure : failures) {
+      exception.addSuppressed(failure);
+    }
+    throw exception;
+  }
+
+  /** Parses {@code method} and returns the reason it is invalid, or null if it is valid. */
+  private @Nullable Throwable validateMethod(Method method) {
+    long startNanos = System.nanoTime();
+    Throwable failure = null;
+    try {
+      loadServiceMethod(method);
+    } catch (RuntimeException | Error e) {
+      retrofit2.Utils.throwIfFatal(e);
+      failure = e;
+    }
+    ValidationListener validationListener = this.validationListener;
+    if (validationListener != null) {
+      validationListener.onMethodValidated(method, System.nanoTime() - startNanos, failure);
+    }
+    return failure;
+  }
+
   // 1.2
   // 核心实现
   // 带缓存的加载
   ServiceMethod<?> loadServiceMethod(Method method) {
-    ServiceMethod<?> result = serviceMethodCache.get(method);
-    if (result != null) return result;
-
-    synchronized (serviceMethodCache) {
-      result = serviceMethodCache.get(method);
-      if (result == null) {
-        // 指向的实现
-        // parseAnnotations怎么返回指定对象？
-        // invoke是怎么实现的
-        // 其实本质上就是在里面做了解析注解的操作
-        // 然后里面进行了okhttp的请求
-        // 获取被代理的接口的方法注解
-        //                        Annotation[] annotations = method.getDeclaredAnnotations();
-        //                        for (Annotation annotation : annotations) {
-        //                            //如果找到对应的Get注解，则将Get注解中的url和mBaseUrl拼接一起
-        //                            if (annotation instanceof Get) {
-        //                                String path = ((Get) annotation).value();
-        //                                String url = mBaseUrl + "/" + path;
-        //                                System.out.println("url:" + url);
-        //                                //通过OkHttp请求url，并将结果回调到外部
-        //                                final OkHttpClient okHttpClient = new OkHttpClient().newBuilder().build();
-        //                                final Request request = new Request.Builder()
-        //                                        .url(url)
-        //                                        .build();
-        //                                call = new Call<Object>() {
-        //                                    @Override
-        //                                    public void enqueue(final CallBack<Object> callBack) {
-        //                                        okHttpClient.newCall(request).enqueue(new Callback() {
-        //                                            @Override
-        //                                            public void onFailure(@NotNull okhttp3.Call call, @NotNull IOException e) {
-        //                                                callBack.onFail(e);
-        //                                            }
-        //
-        //                                            @Override
-        //                                            public void onResponse(@NotNull okhttp3.Call call, @NotNull Response response) throws IOException {
-        //                                                callBack.onResponse(response.body().string());
-        //                                            }
-        //                                        });
-        //
-        //                                    }
-        //                                };
-        //
-        //                            }
-        //                        }
-        //
-        //                        return call;
-        //  如同上述代码，就是这段封装最基础的实现，可以视为两者其实是一致的
-        result = ServiceMethod.parseAnnotations(this, method);
-        serviceMethodCache.put(method, result);
-      }
-    }
-    return result;
+    while (true) {
+      // Note: Once we are minSdk 24 this whole method can be replaced by computeIfAbsent.
+      Object lookup = serviceMethodCache.get(method);
+
+      if (lookup instanceof ServiceMethod<?>) {
+        // Happy path: method is already parsed into the model.
+        return (ServiceMethod<?>) lookup;
+      }
+
+      if (lookup == null) {
+        // Map does not contain any value. Try to put in a lock for this method. We MUST synchronize
+        // on the lock before it is visible to others via the map to signal we are doing the work.
+        Object lock = new Object();
+        synchronized (lock) {
+          lookup = serviceMethodCache.putIfAbsent(method, lock);
+          if (lookup == null) {
+            // On successful lock insertion, perform the work and update the map before releasing.
+            // Other threads may be waiting on lock now and will expect the parsed model.
+            ServiceMethod<?> result;
+            try {
+              result = ServiceMethod.parseAnnotations(this, method);
+            } catch (Throwable e) {
+              // Remove the lock on failure. Any other locked threads will retry as a result.
+              serviceMethodCache.remove(method);
+              throw e;
+            }
+            serviceMethodCache.put(method, result);
+            return result;
+          }
+        }
+      }
+
+      // Either the initial lookup or the attempt to put our lock in the map has returned someone
+      // else's lock. This means they are doing the parsing, and will update the map before releasing
+      // the lock. Once we can take the lock, the map is guaranteed to contain the model or null.
+      // Threads parsing unrelated methods hold their own locks and never block us.
+      synchronized (lookup) {
+        Object result = serviceMethodCache.get(method);
+        if (!(result instanceof ServiceMethod<?>)) {
+          // The other thread failed its parsing, and the map holds nothing or a newer thread's
+          // lock. We will retry (and probably also fail, or wait on that lock).
+          continue;
+        }
+        return (ServiceMethod<?>) result;
+      }
+    }
   }
 
   /**
@@ -338,7 +624,18 @@ public final class Retrofit {
    * @throws IllegalArgumentException if no call adapter available for {@code type}.
    */
   public CallAdapter<?, ?> callAdapter(Type returnType, Annotation[] annotations) {
-    return nextCallAdapter(null, returnType, annotations);
+    ResolutionCache resolutionCache = this.resolutionCache;
+    if (resolutionCache == null) {
+      return nextCallAdapter(null, returnType, annotations);
+    }
+    Objects.requireNonNull(returnType, "returnType == null");
+    Objects.requireNonNull(annotations, "annotations == null");
+    return resolutionCache.get(
+        ResolutionCache.CALL_ADAPTER,
+        returnType,
+        annotations,
+        null,
+        () -> nextCallAdapter(null, returnType, annotations));
   }
 
   /**
@@ -394,7 +691,19 @@ public final class Retrofit {
    */
   public <T> Converter<T, RequestBody> requestBodyConverter(
       Type type, Annotation[] parameterAnnotations, Annotation[] methodAnnotations) {
-    return nextRequestBodyConverter(null, type, parameterAnnotations, methodAnnotations);
+    ResolutionCache resolutionCache = this.resolutionCache;
+    if (resolutionCache == null) {
+      return nextRequestBodyConverter(null, type, parameterAnnotations, methodAnnotations);
+    }
+    Objects.requireNonNull(type, "type == null");
+    Objects.requireNonNull(parameterAnnotations, "parameterAnnotations == null");
+    Objects.requireNonNull(methodAnnotations, "methodAnnotations == null");
+    return resolutionCache.get(
+        ResolutionCache.REQUEST_BODY_CONVERTER,
+        type,
+        parameterAnnotations,
+        methodAnnotations,
+        () -> nextRequestBodyConverter(null, type, parameterAnnotations, methodAnnotations));
   }
 
   /**
@@ -446,7 +755,18 @@ public final class Retrofit {
    * @throws IllegalArgumentException if no converter available for {@code type}.
    */
   public <T> Converter<ResponseBody, T> responseBodyConverter(Type type, Annotation[] annotations) {
-    return nextResponseBodyConverter(null, type, annotations);
+    ResolutionCache resolutionCache = this.resolutionCache;
+    if (resolutionCache == null) {
+      return nextResponseBodyConverter(null, type, annotations);
+    }
+    Objects.requireNonNull(type, "type == null");
+    Objects.requireNonNull(annotations, "annotations == null");
+    return resolutionCache.get(
+        ResolutionCache.RESPONSE_BODY_CONVERTER,
+        type,
+        annotations,
+        null,
+        () -> nextResponseBodyConverter(null, type, annotations));
   }
 
   /**
@@ -496,6 +816,19 @@ public final class Retrofit {
     Objects.requireNonNull(type, "type == null");
     Objects.requireNonNull(annotations, "annotations == null");
 
+    ResolutionCache resolutionCache = this.resolutionCache;
+    if (resolutionCache == null) {
+      return findStringConverter(type, annotations);
+    }
+    return resolutionCache.get(
+        ResolutionCache.STRING_CONVERTER,
+        type,
+        annotations,
+        null,
+        () -> findStringConverter(type, annotations));
+  }
+
+  private <T> Converter<T, String> findStringConverter(Type type, Annotation[] annotations) {
     for (int i = 0, count = converterFactories.size(); i < count; i++) {
       Converter<?, String> converter =
           converterFactories.get(i).stringConverter(type, annotations, this);
@@ -518,6 +851,37 @@ public final class Retrofit {
     return callbackExecutor;
   }
 
+  /**
+   * Hit and miss counts of the call adapter and converter cache, or null if {@linkplain
+   * Builder#memoizeResolution memoization} is disabled.
+   */
+  public @Nullable CacheStats resolutionCacheStats() {
+    ResolutionCache resolutionCache = this.resolutionCache;
+    return resolutionCache != null ? resolutionCache.stats() : null;
+  }
+
+  /**
+   * Hit and miss counts of the resolved {@link retrofit2.http.Url @Url} cache, or null if it is
+   * {@linkplain Builder#urlCacheSize disabled}.
+   */
+  public @Nullable CacheStats urlCacheStats() {
+    UrlCache urlCache = this.urlCache;
+    return urlCache != null ? urlCache.stats() : null;
+  }
+
+  /** Byte counts of the response bodies which were read into memory or spilled to disk. */
+  public BufferStats bufferStats() {
+    return responseBuffering.stats();
+  }
+
+  /**
+   * Returns a builder initialized with this instance's settings.
+   *
+   * <p>If only the base URL is changed, the built instance reuses this instance's parsed service
+   * methods, including the converters and call adapters their factories created. A factory which
+   * reads {@link #baseUrl()} or other state of the {@code Retrofit} passed to it keeps seeing this
+   * instance. Call {@link Builder#shareServiceMethods shareServiceMethods(false)} if that matters.
+   */
   public Builder newBuilder() {
     return new Builder(this);
   }
@@ -535,10 +899,33 @@ public final class Retrofit {
     private final List<CallAdapter.Factory> callAdapterFactories = new ArrayList<>();
     private @Nullable Executor callbackExecutor;
     private boolean validateEagerly;
+    private @Nullable ForkJoinPool validationPool;
+    private @Nullable ValidationListener validationListener;
+    private @Nullable File serviceMetadataDirectory;
+    private boolean compileRequestFactories;
+    private boolean invocationTags = true;
+    private boolean streamFormBodies;
+    private boolean memoizeResolution;
+    private int urlCacheSize;
+    private @Nullable UrlCache urlCache;
+    private boolean coalesceIdenticalGets;
+    private List<String> coalescingKeyHeaders = Collections.emptyList();
+    private @Nullable CallCoalescer callCoalescer;
+    private @Nullable ResponseCache responseCache;
+    private long maxBufferedBodySize = Long.MAX_VALUE;
+    private long bufferMemoryBudget = Long.MAX_VALUE;
+    private long spillThreshold = Long.MAX_VALUE;
+    private @Nullable File spillDirectory;
+    private ErrorBodyMode errorBodyMode = ErrorBodyMode.BUFFER;
+    private long maxErrorBodySize = Long.MAX_VALUE;
+    private @Nullable ResponseBuffering responseBuffering;
+    private @Nullable Retrofit source;
+    private boolean shareServiceMethods = true;
 
     public Builder() {}
 
     Builder(Retrofit retrofit) {
+      source = retrofit;
       callFactory = retrofit.callFactory;
       baseUrl = retrofit.baseUrl;
 
@@ -561,6 +948,29 @@ public final class Retrofit {
 
       callbackExecutor = retrofit.callbackExecutor;
       validateEagerly = retrofit.validateEagerly;
+      validationPool = retrofit.validationPool;
+      validationListener = retrofit.validationListener;
+      serviceMetadataDirectory =
+          retrofit.serviceMetadataStore != null ? retrofit.serviceMetadataStore.directory : null;
+      compileRequestFactories = retrofit.compileRequestFactories;
+      invocationTags = retrofit.invocationTags;
+      streamFormBodies = retrofit.streamFormBodies;
+      memoizeResolution = retrofit.resolutionCache != null;
+      urlCache = retrofit.urlCache;
+      urlCacheSize = urlCache != null ? urlCache.maxSize : 0;
+      callCoalescer = retrofit.callCoalescer;
+      coalesceIdenticalGets = callCoalescer != null;
+      if (callCoalescer != null) {
+        coalescingKeyHeaders = callCoalescer.keyHeaders;
+      }
+      responseCache = retrofit.responseCache;
+      responseBuffering = retrofit.responseBuffering;
+      maxBufferedBodySize = responseBuffering.maxBodySize;
+      bufferMemoryBudget = responseBuffering.memoryBudget;
+      spillThreshold = responseBuffering.spillThreshold;
+      spillDirectory = responseBuffering.spillDirectory;
+      errorBodyMode = responseBuffering.errorBodyMode;
+      maxErrorBodySize = responseBuffering.maxErrorBodySize;
     }
 
     /**
@@ -662,7 +1072,19 @@ public final class Retrofit {
       return this;
     }
 
-    /** Add converter factory for serialization and deserialization of objects. */
+    /**
+     * Add converter factory for serialization and deserialization of objects.
+     *
+     * <p>Built-in converters are consulted before every added factory, so these types are never
+     * passed to one: {@link RequestBody} and {@link ResponseBody}, {@code Void} and {@code Unit}
+     * responses, and {@link FileSlice}, {@code java.nio.file.Path}, {@link
+     * java.nio.channels.FileChannel} and {@link java.nio.MappedByteBuffer} request bodies, which
+     * are sent straight from the file. {@code Stream}, {@code Iterator} and {@code Flow.Publisher}
+     * responses are also built in, but their elements are converted by these factories. A {@code
+     * java.nio.file.Path} response is written to the file by Retrofit only for methods with a
+     * {@link com.ownbranch.retrofit2.http.SaveTo @SaveTo} parameter, and otherwise is converted
+     * by these factories.
+     */
     public Builder addConverterFactory(Converter.Factory factory) {
       converterFactories.add(Objects.requireNonNull(factory, "factory == null"));
       return this;
@@ -708,11 +1130,252 @@ public final class Retrofit {
       return this;
     }
 
+    /**
+     * Parse the methods of each interface in parallel on {@code pool} when {@linkplain
+     * #validateEagerly(boolean) validating eagerly}. Instead of failing on the first invalid method,
+     * all invalid methods are reported together in one exception whose suppressed exceptions are
+     * the individual failures.
+     *
+     * <p>Passing null validates on the thread calling {@link #create}, which is the default.
+     */
+    public Builder validationPool(@Nullable ForkJoinPool pool) {
+      this.validationPool = pool;
+      return this;
+    }
+
+    /**
+     * Receive the parse time and outcome of every method checked by {@linkplain
+     * #validateEagerly(boolean) eager validation}.
+     */
+    public Builder validationListener(@Nullable ValidationListener listener) {
+      this.validationListener = listener;
+      return this;
+    }
+
+    /**
+     * Persist the HTTP method, relative URL, path parameter names, headers, and content type of each
+     * service method in {@code directory} so that later processes can skip parsing them.
+     *
+     * <p>Snapshots are written by {@link #create} when {@linkplain #validateEagerly(boolean) eager
+     * validation} is enabled and no current snapshot exists. They are read by {@link #create}
+     * whether or not eager validation is enabled. A snapshot is ignored once its interface's class
+     * file changes. Converters and call adapters are always resolved at runtime.
+     */
+    public Builder serviceMetadataDirectory(@Nullable File directory) {
+      this.serviceMetadataDirectory = directory;
+      return this;
+    }
+
+    /**
+     * Compose the parameter handlers of each service method into a dedicated method handle rather
+     * than looping over them for every call. This lets the JIT specialize and inline the request
+     * building of hot methods at the cost of extra work when each method is first parsed.
+     *
+     * <p>This has no effect on platforms without efficient method handles, such as Android before
+     * API 26.
+     */
+    public Builder compileRequestFactories(boolean compileRequestFactories) {
+      this.compileRequestFactories = compileRequestFactories;
+      return this;
+    }
+
+    /**
+     * Attach an {@link Invocation} tag to each request. This is enabled by default. Disable it if
+     * no interceptor or event listener reads the tag.
+     *
+     * <p>The tag wraps the call's arguments without copying them. Its argument list is only
+     * created when {@link Invocation#arguments()} is first called.
+     */
+    public Builder invocationTags(boolean invocationTags) {
+      this.invocationTags = invocationTags;
+      return this;
+    }
+
+    /**
+     * Whether an instance built from {@link Retrofit#newBuilder()} with only a new base URL reuses
+     * the source instance's parsed service methods. This is enabled by default.
+     *
+     * <p>Shared methods keep the converters and call adapters created when the source instance
+     * parsed them. Disable this if a factory reads {@link Retrofit#baseUrl()} or other state of the
+     * {@code Retrofit} it is given, so that each instance parses its methods itself.
+     */
+    public Builder shareServiceMethods(boolean shareServiceMethods) {
+      this.shareServiceMethods = shareServiceMethods;
+      return this;
+    }
+
+    /**
+     * Send {@link retrofit2.http.FormUrlEncoded @FormUrlEncoded} bodies which percent-encode their
+     * fields as they are written, rather than holding the encoded fields in an {@link
+     * okhttp3.FormBody}.
+     *
+     * <p>A {@link retrofit2.http.FieldMap @FieldMap} is not copied: its entries are read from the
+     * caller's map and converted while the body is written, so memory stays flat however many it
+     * has. The map must not change until the call completes, and a null entry or a converter
+     * failure fails the call with an {@link IOException} rather than being thrown when it is made.
+     * Such bodies have an unknown length and are sent chunked. {@link retrofit2.http.Field @Field}
+     * values are still converted when the request is built.
+     *
+     * <p>This is disabled by default. Interceptors which check for {@code FormBody}, such as ones
+     * that sign or log form fields, will not recognize these bodies.
+     */
+    public Builder streamFormBodies(boolean streamFormBodies) {
+      this.streamFormBodies = streamFormBodies;
+      return this;
+    }
+
+    /**
+     * Remember the call adapter and converters resolved for each combination of type and
+     * annotations, and reuse them for every service method of the resulting {@link Retrofit}.
+     * Lookups compare the type and all of the supplied annotations, so only factories whose result
+     * depends on nothing else should be installed when enabling this.
+     *
+     * @see Retrofit#resolutionCacheStats()
+     */
+    public Builder memoizeResolution(boolean memoizeResolution) {
+      this.memoizeResolution = memoizeResolution;
+      return this;
+    }
+
+    /**
+     * Cache up to {@code maxSize} {@link retrofit2.http.Url @Url} values resolved against the base
+     * URL, evicting the least recently used. This suits clients which follow links such as
+     * pagination URLs that recur across calls. Zero, the default, disables the cache.
+     *
+     * <p>Instances created by {@link Retrofit#newBuilder()} share the cache unless its size is
+     * changed.
+     *
+     * @see Retrofit#urlCacheStats()
+     */
+    public Builder urlCacheSize(int maxSize) {
+      if (maxSize < 0) {
+        throw new IllegalArgumentException("maxSize < 0: " + maxSize);
+      }
+      this.urlCacheSize = maxSize;
+      return this;
+    }
+
+    /**
+     * Let concurrent {@code GET} calls with the same URL share one network exchange. Calls which
+     * start while an identical call is in flight wait for its response rather than making their
+     * own request. This is useful when many threads request the same resource at once, such as
+     * when a cached value expires.
+     *
+     * <p>Successful calls share a single converted body instance, so enable this only for response
+     * types which callers treat as immutable. Methods returning {@link ResponseBody} are never
+     * coalesced. A waiting call can be canceled independently. Canceling the call which is making
+     * the request fails every call sharing it.
+     *
+     * @see #coalescingKeyHeaders
+     */
+    public Builder coalesceIdenticalGets(boolean coalesceIdenticalGets) {
+      this.coalesceIdenticalGets = coalesceIdenticalGets;
+      return this;
+    }
+
+    /**
+     * Request headers whose values must also match for calls to be {@linkplain
+     * #coalesceIdenticalGets coalesced}, such as {@code Authorization} or {@code Accept-Language}.
+     * Only headers added by Retrofit are seen. Headers added later by interceptors are not.
+     */
+    public Builder coalescingKeyHeaders(String... names) {
+      for (String name : names) {
+        Objects.requireNonNull(name, "name == null");
+      }
+      this.coalescingKeyHeaders = unmodifiableList(new ArrayList<>(Arrays.asList(names)));
+      return this;
+    }
+
+    /**
+     * Cache the converted bodies of {@code GET} responses in {@code responseCache}, or stop caching
+     * them if it is null. A cached body is returned without a network exchange while it is fresh,
+     * and without converting it again when the server answers a revalidation with {@code 304 Not
+     * Modified}.
+     */
+    public Builder responseCache(@Nullable ResponseCache responseCache) {
+      this.responseCache = responseCache;
+      return this;
+    }
+
+    /**
+     * Fail calls whose {@link ResponseBody} or error body would be larger than {@code maxSize}
+     * bytes when read fully. By default there is no limit. This does not apply to {@link
+     * retrofit2.http.Streaming @Streaming} bodies, or to bodies read by a converter.
+     */
+    public Builder maxBufferedBodySize(long maxSize) {
+      if (maxSize <= 0L) {
+        throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+      }
+      this.maxBufferedBodySize = maxSize;
+      return this;
+    }
+
+    /**
+     * Limit the bytes held in memory by all buffered bodies at once, including error bodies, to
+     * {@code maxBytes}. A body counts against this until it is read to the end or closed. Bodies
+     * which would exceed it are {@linkplain #spillBufferedBodies spilled to disk} if that is
+     * enabled, or fail otherwise. By default there is no limit.
+     *
+     * <p>Instances created by {@link Retrofit#newBuilder()} share the budget unless a buffering
+     * setting is changed.
+     *
+     * @see Retrofit#bufferStats()
+     */
+    public Builder bufferMemoryBudget(long maxBytes) {
+      if (maxBytes <= 0L) {
+        throw new IllegalArgumentException("maxBytes <= 0: " + maxBytes);
+      }
+      this.bufferMemoryBudget = maxBytes;
+      return this;
+    }
+
+    /**
+     * Write buffered bodies larger than {@code thresholdBytes}, or which do not fit in the {@link
+     * #bufferMemoryBudget memory budget}, to temporary files in {@code directory} rather than the
+     * heap. They are read back through a memory mapping, and each file is deleted once its body is
+     * closed.
+     */
+    public Builder spillBufferedBodies(long thresholdBytes, File directory) {
+      if (thresholdBytes < 0L) {
+        throw new IllegalArgumentException("thresholdBytes < 0: " + thresholdBytes);
+      }
+      this.spillThreshold = thresholdBytes;
+      this.spillDirectory = Objects.requireNonNull(directory, "directory == null");
+      return this;
+    }
+
+    /**
+     * Whether the bodies of responses with a non-2xx status are buffered, which is the default,
+     * left unread until the caller reads them, or discarded. Lazy error bodies hold their
+     * connection until closed, so every caller must close {@link Response#errorBody()}.
+     */
+    public Builder errorBodyMode(ErrorBodyMode mode) {
+      this.errorBodyMode = Objects.requireNonNull(mode, "mode == null");
+      return this;
+    }
+
+    /**
+     * Keep only the first {@code maxSize} bytes of error bodies, and drop the rest unread. Unlike
+     * {@link #maxBufferedBodySize}, a longer error body does not fail the call. By default there is
+     * no limit.
+     */
+    public Builder maxErrorBodySize(long maxSize) {
+      if (maxSize < 0L) {
+        throw new IllegalArgumentException("maxSize < 0: " + maxSize);
+      }
+      this.maxErrorBodySize = maxSize;
+      return this;
+    }
+
     /**
      * Create the {@link Retrofit} instance using the configured values.
      *
      * <p>Note: If neither {@link #client} nor {@link #callFactory} is called a default {@link
      * OkHttpClient} will be created and used.
+     *
+     * <p>A builder from {@link Retrofit#newBuilder()} whose only change is the base URL builds an
+     * instance which shares the source's parsed service methods, and with them the converters and
+     * call adapters resolved against the source. See {@link #shareServiceMethods}.
      */
     public Retrofit build() {
       if (baseUrl == null) {
@@ -746,10 +1409,42 @@ public final class Retrofit {
 
       // Add the built-in converter factory first. This prevents overriding its behavior but also
       // ensures correct behavior when using converters that consume all types.
-      converterFactories.add(new BuiltInConverters());
+      converterFactories.add(new BuiltInConverters(platform.createRecordStreamConverterFactory()));
       converterFactories.addAll(this.converterFactories);
       converterFactories.addAll(defaultConverterFactories);
 
+      CallCoalescer callCoalescer = this.callCoalescer;
+      if (!coalesceIdenticalGets) {
+        callCoalescer = null;
+      } else if (callCoalescer == null || !callCoalescer.keyHeaders.equals(coalescingKeyHeaders)) {
+        callCoalescer = new CallCoalescer(coalescingKeyHeaders);
+      }
+
+      ResponseBuffering responseBuffering = this.responseBuffering;
+      if (responseBuffering == null
+          || responseBuffering.maxBodySize != maxBufferedBodySize
+          || responseBuffering.memoryBudget != bufferMemoryBudget
+          || responseBuffering.spillThreshold != spillThreshold
+          || !Objects.equals(responseBuffering.spillDirectory, spillDirectory)
+          || responseBuffering.errorBodyMode != errorBodyMode
+          || responseBuffering.maxErrorBodySize != maxErrorBodySize) {
+        responseBuffering =
+            new ResponseBuffering(
+                maxBufferedBodySize,
+                bufferMemoryBudget,
+                spillThreshold,
+                spillDirectory,
+                errorBodyMode,
+                maxErrorBodySize);
+      }
+
+      UrlCache urlCache = this.urlCache;
+      if (urlCacheSize == 0) {
+        urlCache = null;
+      } else if (urlCache == null || urlCache.maxSize != urlCacheSize) {
+        urlCache = new UrlCache(urlCacheSize);
+      }
+
       return new Retrofit(
           callFactory,
           baseUrl,
@@ -758,7 +1453,75 @@ public final class Retrofit {
           unmodifiableList(callAdapterFactories),
           defaultCallAdapterFactories.size(),
           callbackExecutor,
-          validateEagerly);
+          validateEagerly,
+          validationPool,
+          validationListener,
+          serviceMetadataDirectory != null
+              ? new ServiceMetadataStore(serviceMetadataDirectory)
+              : null,
+          compileRequestFactories,
+          invocationTags,
+          streamFormBodies,
+          memoizeResolution,
+          urlCache,
+          callCoalescer,
+          responseCache,
+          responseBuffering,
+          canShareServiceMethods(
+                  callFactory, callbackExecutor, urlCache, callCoalescer, responseBuffering)
+              ? source.serviceMethodCache
+              : null);
+    }
+
+    /**
+     * True if this builder was created by {@link Retrofit#newBuilder()} and every setting which
+     * affects parsed service methods is still identical to those of the source instance. The base
+     * URL is not one of them: it is supplied on each call.
+     */
+    private boolean canShareServiceMethods(
+        okhttp3.Call.Factory callFactory,
+        Executor callbackExecutor,
+        @Nullable UrlCache urlCache,
+        @Nullable CallCoalescer callCoalescer,
+        ResponseBuffering responseBuffering) {
+      Retrofit source = this.source;
+      if (source == null
+          || !shareServiceMethods
+          || source.callFactory != callFactory
+          || source.callbackExecutor != callbackExecutor
+          || source.compileRequestFactories != compileRequestFactories
+          || source.invocationTags != invocationTags
+          || source.streamFormBodies != streamFormBodies
+          || source.urlCache != urlCache
+          || source.callCoalescer != callCoalescer
+          || source.responseCache != responseCache
+          || source.responseBuffering != responseBuffering) {
+        return false;
+      }
+
+      // Compare the user-supplied factories only. The defaults are recreated by every build().
+      List<Converter.Factory> sourceConverters = source.converterFactories;
+      int converterCount = sourceConverters.size() - source.defaultConverterFactoriesSize - 1;
+      if (converterFactories.size() != converterCount) {
+        return false;
+      }
+      for (int i = 0; i < converterCount; i++) {
+        if (converterFactories.get(i) != sourceConverters.get(i + 1)) {
+          return false;
+        }
+      }
+
+      List<CallAdapter.Factory> sourceAdapters = source.callAdapterFactories;
+      int adapterCount = sourceAdapters.size() - source.defaultCallAdapterFactoriesSize;
+      if (callAdapterFactories.size() != adapterCount) {
+        return false;
+      }
+      for (int i = 0; i < adapterCount; i++) {
+        if (callAdapterFactories.get(i) != sourceAdapters.get(i)) {
+          return false;
+        }
+      }
+      return true;
     }
   }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import javax.annotation.Nullable;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+
+/**
+ * Persists {@link RequestFactory.Metadata} for each method of a service interface so that a later
+ * run can skip parsing and validating method annotations.
+ *
+ * <p>Each interface gets one file named after its binary name. The file records a checksum of the
+ * interface's class file and is ignored if the interface has changed since it was written. On
+ * platforms where class files are not readable as resources (such as Android) nothing is stored.
+ */
+final class ServiceMetadataStore {
+  private static final int MAGIC = 0x52464D44; // "RFMD"
+  private static final int VERSION = 1;
+
+  final File directory;
+
+  ServiceMetadataStore(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the recorded metadata for the methods of {@code service}, or null if there is no
+   * snapshot or it is out of date.
+   */
+  @Nullable
+  Map<Method, RequestFactory.Metadata> load(Class<?> service) {
+    long checksum = checksum(service);
+    File file = file(service);
+    if (checksum == -1L || !file.exists()) {
+      return null;
+    }
+
+    Map<String, Method> methodsByKey = new HashMap<>();
+    for (Method method : service.getDeclaredMethods()) {
+      methodsByKey.put(method.toString(), method);
+    }
+
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != checksum) {
+        return null;
+      }
+      int count = in.readInt();
+      Map<Method, RequestFactory.Metadata> result = new HashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        String key = in.readUTF();
+        RequestFactory.Metadata metadata = readMetadata(in);
+        Method method = methodsByKey.get(key);
+        if (method == null) {
+          return null; // Checksum matched but the method did not. Treat the snapshot as stale.
+        }
+        result.put(method, metadata);
+      }
+      return result;
+    } catch (IOException | IllegalArgumentException e) {
+      return null; // Unreadable snapshots are ignored and rewritten.
+    }
+  }
+
+  /** Writes {@code metadata} as the snapshot for {@code service}, replacing any existing one. */
+  void save(Class<?> service, Map<Method, RequestFactory.Metadata> metadata) throws IOException {
+    long checksum = checksum(service);
+    if (checksum == -1L) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create " + directory);
+    }
+
+    // Write to a temporary file first so concurrent readers never observe a partial snapshot.
+    File file = file(service);
+    File temp = new File(directory, file.getName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(checksum);
+      out.writeInt(metadata.size());
+      for (Map.Entry<Method, RequestFactory.Metadata> entry : metadata.entrySet()) {
+        out.writeUTF(entry.getKey().toString());
+        writeMetadata(out, entry.getValue());
+      }
+    }
+    if (!temp.renameTo(file)) {
+      file.delete();
+      if (!temp.renameTo(file)) {
+        throw new IOException("Unable to replace " + file);
+      }
+    }
+  }
+
+  private File file(Class<?> service) {
+    return new File(directory, service.getName() + ".rmeta");
+  }
+
+  private static void writeMetadata(DataOutputStream out, RequestFactory.Metadata metadata)
+      throws IOException {
+    out.writeUTF(metadata.httpMethod);
+    out.writeBoolean(metadata.hasBody);
+    out.writeBoolean(metadata.isFormEncoded);
+    out.writeBoolean(metadata.isMultipart);
+    writeNullableUtf(out, metadata.relativeUrl);
+
+    Set<String> paramNames = metadata.relativeUrlParamNames;
+    out.writeInt(paramNames != null ? paramNames.size() : -1);
+    if (paramNames != null) {
+      for (String name : paramNames) {
+        out.writeUTF(name);
+      }
+    }
+
+    Headers headers = metadata.headers;
+    out.writeInt(headers != null ? headers.size() : -1);
+    if (headers != null) {
+      for (int i = 0, size = headers.size(); i < size; i++) {
+        out.writeUTF(headers.name(i));
+        out.writeUTF(headers.value(i));
+      }
+    }
+
+    writeNullableUtf(out, metadata.contentType != null ? metadata.contentType.toString() : null);
+  }
+
+  private static RequestFactory.Metadata readMetadata(DataInputStream in) throws IOException {
+    String httpMethod = in.readUTF();
+    boolean hasBody = in.readBoolean();
+    boolean isFormEncoded = in.readBoolean();
+    boolean isMultipart = in.readBoolean();
+    String relativeUrl = readNullableUtf(in);
+
+    Set<String> paramNames = null;
+    int paramNameCount = in.readInt();
+    if (paramNameCount != -1) {
+      paramNames = new LinkedHashSet<>();
+      for (int i = 0; i < paramNameCount; i++) {
+        paramNames.add(in.readUTF());
+      }
+    }
+
+    Headers headers = null;
+    int headerCount = in.readInt();
+    if (headerCount != -1) {
+      Headers.Builder builder = new Headers.Builder();
+      for (int i = 0; i < headerCount; i++) {
+        RequestFactory.addStaticHeader(builder, in.readUTF(), in.readUTF());
+      }
+      headers = builder.build();
+    }
+
+    String contentType = readNullableUtf(in);
+    return new RequestFactory.Metadata(
+        httpMethod,
+        hasBody,
+        isFormEncoded,
+        isMultipart,
+        relativeUrl,
+        paramNames,
+        headers,
+        contentType != null ? MediaType.get(contentType) : null);
+  }
+
+  private static void writeNullableUtf(DataOutputStream out, @Nullable String value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static @Nullable String readNullableUtf(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  /** A checksum of the class file for {@code service}, or -1 if it cannot be read. */
+  private static long checksum(Class<?> service) {
+    String name = service.getName();
+    String resource = name.substring(name.lastIndexOf('.') + 1) + ".class";
+    try (InputStream in = service.getResourceAsStream(resource)) {
+      if (in == null) {
+        return -1L;
+      }
+      CRC32 crc = new CRC32();
+      byte[] buffer = new byte[8192];
+      for (int read; (read = in.read(buffer)) != -1; ) {
+        crc.update(buffer, 0, read);
+      }
+      return crc.getValue();
+    } catch (IOException e) {
+      return -1L;
+    }
+  }
+}
@@ -45,5 +45,10 @@ abstract class ServiceMethod<T> {
     return HttpServiceMethod.parseAnnotations(retrofit, method, requestFactory);
   }
 
-  abstract @Nullable T invoke(Object[] args);
+  /**
+   * Invokes this method against the base URL of {@code endpoint}. The endpoint is supplied per call
+   * rather than captured when parsing so that parsed methods can be shared between {@link Retrofit}
+   * instances which differ only in their base URL.
+   */
+  abstract @Nullable T invoke(Endpoint endpoint, Object[] args);
 }
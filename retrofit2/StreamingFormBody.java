@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * A form-encoded request body which converts and encodes its fields into the sink as it is
+ * written, rather than holding every encoded name and value like {@link okhttp3.FormBody}. Used
+ * only when {@link Retrofit.Builder#streamFormBodies} is enabled, since interceptors may expect a
+ * {@code FormBody}.
+ *
+ * <p>A {@link retrofit2.http.FieldMap @FieldMap} is read from the caller's map each time the body
+ * is written, so memory does not grow with its size. Its entries are converted then too, and a
+ * null entry or a converter failure fails the call with an {@link IOException} rather than being
+ * thrown when the call is made. The map must not change until the call completes. Bodies with a
+ * field map have an unknown content length and are sent chunked. Bodies of {@link
+ * retrofit2.http.Field @Field} values alone know their length up front.
+ */
+final class StreamingFormBody extends RequestBody {
+  private static final MediaType CONTENT_TYPE =
+      MediaType.get("application/x-www-form-urlencoded");
+
+  private final List<Part> parts;
+  private final long contentLength;
+
+  private StreamingFormBody(List<Part> parts, long contentLength) {
+    this.parts = parts;
+    this.contentLength = contentLength;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return CONTENT_TYPE;
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    boolean first = true;
+    for (int i = 0, size = parts.size(); i < size; i++) {
+      first = parts.get(i).writeTo(sink, first);
+    }
+  }
+
+  /**
+   * Writes one field, preceded by '&' unless it is the {@code first}. Unescaped input is returned
+   * as-is by the encoder, so the common case writes the strings directly.
+   */
+  static void writeField(
+      BufferedSink sink, boolean first, String name, String value, boolean encoded)
+      throws IOException {
+    if (!first) {
+      sink.writeByte('&');
+    }
+    sink.writeUtf8(PercentEncoder.FORM.encode(name, encoded));
+    sink.writeByte('=');
+    sink.writeUtf8(PercentEncoder.FORM.encode(value, encoded));
+  }
+
+  /** Converts the values of a field map while the body is written. */
+  interface EntryConverter<T> {
+    /** Returns the form value of an entry, or throws if the entry is not allowed. */
+    String convert(@Nullable String name, @Nullable T value) throws IOException;
+  }
+
+  private abstract static class Part {
+    /** Writes this part's fields and returns whether the next field is still the first. */
+    abstract boolean writeTo(BufferedSink sink, boolean first) throws IOException;
+  }
+
+  private static final class Field extends Part {
+    final String name;
+    final String value;
+    final boolean encoded;
+
+    Field(String name, String value, boolean encoded) {
+      this.name = name;
+      this.value = value;
+      this.encoded = encoded;
+    }
+
+    @Override
+    boolean writeTo(BufferedSink sink, boolean first) throws IOException {
+      writeField(sink, first, name, value, encoded);
+      return false;
+    }
+  }
+
+  private static final class FieldMap<T> extends Part {
+    final Map<String, T> fields;
+    final EntryConverter<T> converter;
+    final boolean encoded;
+
+    FieldMap(Map<String, T> fields, EntryConverter<T> converter, boolean encoded) {
+      this.fields = fields;
+      this.converter = converter;
+      this.encoded = encoded;
+    }
+
+    @Override
+    boolean writeTo(BufferedSink sink, boolean first) throws IOException {
+      for (Map.Entry<String, T> entry : fields.entrySet()) {
+        String name = entry.getKey();
+        String value;
+        try {
+          value = converter.convert(name, entry.getValue());
+        } catch (IllegalArgumentException e) {
+          throw new IOException(e.getMessage(), e); // Thrown while writing, so report it as I/O.
+        }
+        writeField(sink, first, name, value, encoded);
+        first = false;
+      }
+      return first;
+    }
+  }
+
+  static final class Builder {
+    private final List<Part> parts = new ArrayList<>();
+    private boolean empty = true;
+    private long contentLength;
+
+    Builder add(String name, String value, boolean encoded) {
+      if (contentLength != -1L) {
+        if (!empty) {
+          contentLength++; // '&'
+        }
+        contentLength +=
+            PercentEncoder.FORM.encodedLength(name, encoded)
+                + 1 // '='
+                + PercentEncoder.FORM.encodedLength(value, encoded);
+      }
+      empty = false;
+      parts.add(new Field(name, value, encoded));
+      return this;
+    }
+
+    /** Adds the entries of {@code fields}, which are read and converted as the body is written. */
+    <T> Builder addAll(Map<String, T> fields, EntryConverter<T> converter, boolean encoded) {
+      if (fields.isEmpty()) return this;
+      contentLength = -1L; // Only known once every entry has been converted.
+      empty = false;
+      parts.add(new FieldMap<>(fields, converter, encoded));
+      return this;
+    }
+
+    /** Returns the body. This builder must not be used afterwards. */
+    StreamingFormBody build() {
+      return new StreamingFormBody(parts, contentLength);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import okhttp3.HttpUrl;
+
+/**
+ * A bounded cache of {@link retrofit2.http.Url @Url} values resolved against a base URL. Values
+ * which do not resolve are not cached.
+ *
+ * <p>Entries are keyed by base URL as well as value so one cache can serve every {@link Retrofit}
+ * created from the same builder chain.
+ *
+ * <p>Entries are spread over independently locked stripes by hash, so concurrent calls rarely
+ * contend. Each stripe evicts its own least recently used entry once it holds its share of {@link
+ * #maxSize}, which approximates a single LRU.
+ */
+final class UrlCache {
+  private static final int MAX_STRIPES = 16;
+
+  final int maxSize;
+
+  private final Stripe[] stripes;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  UrlCache(int maxSize) {
+    this.maxSize = maxSize;
+    int stripeCount = Math.min(MAX_STRIPES, maxSize);
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      // Share maxSize out exactly, so the cache never holds more than maxSize entries.
+      stripes[i] = new Stripe(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+    }
+  }
+
+  /** Returns {@code baseUrl.resolve(link)}, reusing an earlier result if there is one. */
+  @Nullable
+  HttpUrl resolve(HttpUrl baseUrl, String link) {
+    Key key = new Key(baseUrl, link);
+    int hash = key.hashCode;
+    Stripe stripe = stripes[((hash ^ (hash >>> 16)) & 0x7fffffff) % stripes.length];
+    HttpUrl url;
+    synchronized (stripe) {
+      url = stripe.get(key);
+    }
+    if (url != null) {
+      hitCount.incrementAndGet();
+      return url;
+    }
+
+    missCount.incrementAndGet();
+    url = baseUrl.resolve(link);
+    if (url != null) {
+      synchronized (stripe) {
+        stripe.put(key, url);
+      }
+    }
+    return url;
+  }
+
+  CacheStats stats() {
+    return new CacheStats(hitCount.get(), missCount.get());
+  }
+
+  /** An access-ordered map, guarded by itself. */
+  private static final class Stripe extends LinkedHashMap<Key, HttpUrl> {
+    private final int maxSize;
+
+    Stripe(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, HttpUrl> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+  private static final class Key {
+    private final HttpUrl baseUrl;
+    private final String link;
+    private final int hashCode;
+
+    Key(HttpUrl baseUrl, String link) {
+      this.baseUrl = baseUrl;
+      this.link = link;
+      // Both parts, since instances from newBuilder() share this cache with other base URLs.
+      this.hashCode = 31 * baseUrl.hashCode() + link.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) return false;
+      Key that = (Key) other;
+      return hashCode == that.hashCode
+          && link.equals(that.link)
+          && (baseUrl == that.baseUrl || baseUrl.equals(that.baseUrl));
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * A relative URL split into literal text and {@code {name}} slots. It is parsed once per service
+ * method, and each request fills every slot in a single pass.
+ *
+ * <p>Values are checked for path traversal on their own, together with the literal text of the
+ * path segment that surrounds their slot. A template where two slots share a path segment, such as
+ * {@code /{a}.{b}/}, cannot be checked that way. For those the whole expanded URL is checked.
+ */
+final class UrlTemplate {
+  /** The longest dot segment, {@code %2e%2e}. */
+  private static final int MAX_DOT_SEGMENT_LENGTH = 6;
+
+  /** The distinct slot names in order of first appearance. */
+  final String[] names;
+  /** Literal text around the slots. There is one more literal than there are slots. */
+  private final String[] literals;
+  /** The index into {@link #names} of each slot. */
+  private final int[] slotNames;
+  /** The literal text in each slot's path segment before and after the slot. */
+  private final String[] segmentPrefixes;
+  private final String[] segmentSuffixes;
+  private final int literalLength;
+  /** True if some path segment contains two slots, so values cannot be checked on their own. */
+  final boolean checkExpandedUrl;
+
+  static UrlTemplate parse(String relativeUrl, Pattern paramPattern) {
+    List<String> names = new ArrayList<>();
+    List<String> literals = new ArrayList<>();
+    List<Integer> slotNames = new ArrayList<>();
+    Matcher m = paramPattern.matcher(relativeUrl);
+    int literalStart = 0;
+    while (m.find()) {
+      literals.add(relativeUrl.substring(literalStart, m.start()));
+      String name = m.group(1);
+      int index = names.indexOf(name);
+      if (index == -1) {
+        index = names.size();
+        names.add(name);
+      }
+      slotNames.add(index);
+      literalStart = m.end();
+    }
+    literals.add(relativeUrl.substring(literalStart));
+
+    int[] slots = new int[slotNames.size()];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = slotNames.get(i);
+    }
+    return new UrlTemplate(names.toArray(new String[0]), literals.toArray(new String[0]), slots);
+  }
+
+  private UrlTemplate(String[] names, String[] literals, int[] slotNames) {
+    this.names = names;
+    this.literals = literals;
+    this.slotNames = slotNames;
+
+    int slotCount = slotNames.length;
+    segmentPrefixes = new String[slotCount];
+    segmentSuffixes = new String[slotCount];
+    boolean checkExpandedUrl = false;
+    int literalLength = 0;
+    for (String literal : literals) {
+      literalLength += literal.length();
+    }
+    for (int i = 0; i < slotCount; i++) {
+      String before = literals[i];
+      int slash = before.lastIndexOf('/');
+      if (slash == -1 && i > 0) {
+        checkExpandedUrl = true; // The previous slot is in this segment.
+      }
+      segmentPrefixes[i] = before.substring(slash + 1);
+
+      String after = literals[i + 1];
+      slash = after.indexOf('/');
+      if (slash == -1 && i + 1 < slotCount) {
+        checkExpandedUrl = true; // The next slot is in this segment.
+      }
+      segmentSuffixes[i] = slash == -1 ? after : after.substring(0, slash);
+    }
+    this.literalLength = literalLength;
+    this.checkExpandedUrl = checkExpandedUrl;
+  }
+
+  /** Returns the index into {@link #names} of {@code name}, or -1 if it has no slot. */
+  int indexOf(String name) {
+    String[] names = this.names;
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns true if substituting the already-encoded {@code value} for the name at {@code
+   * nameIndex} produces a {@code .} or {@code ..} path segment. Only meaningful when {@link
+   * #checkExpandedUrl} is false.
+   */
+  boolean isTraversal(int nameIndex, String value) {
+    int firstSlash = value.indexOf('/');
+    int lastSlash = value.lastIndexOf('/');
+    if (firstSlash != -1) {
+      // Segments wholly inside the value.
+      for (int start = firstSlash + 1, end; start <= lastSlash; start = end + 1) {
+        end = value.indexOf('/', start);
+        if (isDotSegment(value, start, end)) {
+          return true;
+        }
+      }
+    }
+
+    for (int i = 0; i < slotNames.length; i++) {
+      if (slotNames[i] != nameIndex) continue;
+      String prefix = segmentPrefixes[i];
+      String suffix = segmentSuffixes[i];
+      if (firstSlash == -1) {
+        if (isDotSegment(prefix, value, 0, value.length(), suffix)) {
+          return true;
+        }
+      } else if (isDotSegment(prefix, value, 0, firstSlash, "")
+          || isDotSegment("", value, lastSlash + 1, value.length(), suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Fills each slot with the value for its name. Slots whose value is null are given the number
+   * in {@code numbers} if one was set, and otherwise are left as {@code {name}}.
+   */
+  String expand(
+      @Nullable String[] values, @Nullable long[] numbers, @Nullable boolean[] isNumber) {
+    int capacity = literalLength;
+    if (values != null) {
+      for (String value : values) {
+        if (value != null) capacity += value.length();
+      }
+    }
+    StringBuilder result = new StringBuilder(capacity + 20 * slotNames.length);
+    for (int i = 0; i < slotNames.length; i++) {
+      result.append(literals[i]);
+      int name = slotNames[i];
+      String value = values != null ? values[name] : null;
+      if (value != null) {
+        result.append(value);
+      } else if (isNumber != null && isNumber[name]) {
+        //noinspection ConstantConditions Allocated together with isNumber.
+        result.append(numbers[name]);
+      } else {
+        result.append('{').append(names[name]).append('}');
+      }
+    }
+    return result.append(literals[slotNames.length]).toString();
+  }
+
+  private static boolean isDotSegment(
+      String prefix, String value, int start, int end, String suffix) {
+    int length = prefix.length() + (end - start) + suffix.length();
+    if (length == 0 || length > MAX_DOT_SEGMENT_LENGTH) {
+      return false;
+    }
+    if (prefix.isEmpty() && suffix.isEmpty()) {
+      return isDotSegment(value, start, end);
+    }
+    String segment = prefix + value.substring(start, end) + suffix;
+    return isDotSegment(segment, 0, segment.length());
+  }
+
+  /** True if {@code s[start..end)} is one or two of {@code .}, {@code %2e} or {@code %2E}. */
+  private static boolean isDotSegment(String s, int start, int end) {
+    int dots = 0;
+    int i = start;
+    while (i < end) {
+      if (s.charAt(i) == '.') {
+        i++;
+      } else if (i + 2 < end
+          && s.charAt(i) == '%'
+          && s.charAt(i + 1) == '2'
+          && (s.charAt(i + 2) == 'e' || s.charAt(i + 2) == 'E')) {
+        i += 3;
+      } else {
+        return false;
+      }
+      dots++;
+    }
+    return dots == 1 || dots == 2;
+  }
+}
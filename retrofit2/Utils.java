@@ -15,8 +15,10 @@
  */
 package com.ownbranch.retrofit2;
 
-import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.GenericDeclaration;
@@ -26,12 +28,12 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 import kotlin.Unit;
-import okhttp3.ResponseBody;
-import okio.Buffer;
 
 final class Utils {
   static final Type[] EMPTY_TYPE_ARRAY = new Type[0];
@@ -223,7 +225,7 @@ final class Utils {
         Type newComponentType = resolve(context, contextRawType, componentType);
         return componentType == newComponentType
             ? original
-            : new GenericArrayTypeImpl(newComponentType);
+            : intern(new GenericArrayTypeImpl(newComponentType));
 
       } else if (toResolve instanceof GenericArrayType) {
         GenericArrayType original = (GenericArrayType) toResolve;
@@ -231,7 +233,7 @@ final class Utils {
         Type newComponentType = resolve(context, contextRawType, componentType);
         return componentType == newComponentType
             ? original
-            : new GenericArrayTypeImpl(newComponentType);
+            : intern(new GenericArrayTypeImpl(newComponentType));
 
       } else if (toResolve instanceof ParameterizedType) {
         ParameterizedType original = (ParameterizedType) toResolve;
@@ -252,7 +254,7 @@ final class Utils {
         }
 
         return changed
-            ? new ParameterizedTypeImpl(newOwnerType, original.getRawType(), args)
+            ? intern(new ParameterizedTypeImpl(newOwnerType, original.getRawType(), args))
             : original;
 
       } else if (toResolve instanceof WildcardType) {
@@ -263,12 +265,13 @@ final class Utils {
         if (originalLowerBound.length == 1) {
           Type lowerBound = resolve(context, contextRawType, originalLowerBound[0]);
           if (lowerBound != originalLowerBound[0]) {
-            return new WildcardTypeImpl(new Type[] {Object.class}, new Type[] {lowerBound});
+            return intern(
+                new WildcardTypeImpl(new Type[] {Object.class}, new Type[] {lowerBound}));
           }
         } else if (originalUpperBound.length == 1) {
           Type upperBound = resolve(context, contextRawType, originalUpperBound[0]);
           if (upperBound != originalUpperBound[0]) {
-            return new WildcardTypeImpl(new Type[] {upperBound}, EMPTY_TYPE_ARRAY);
+            return intern(new WildcardTypeImpl(new Type[] {upperBound}, EMPTY_TYPE_ARRAY));
           }
         }
         return original;
@@ -320,10 +323,110 @@ final class Utils {
     return false;
   }
 
-  static ResponseBody buffer(final ResponseBody body) throws IOException {
-    Buffer buffer = new Buffer();
-    body.source().readAll(buffer);
-    return ResponseBody.create(body.contentType(), body.contentLength(), buffer);
+  /**
+   * Canonical instances of the types created while resolving service methods. Entries are weak so
+   * that interning does not keep types, or their class loaders, reachable. Lookups take no lock,
+   * since converter and call adapter factories canonicalize on every resolution.
+   */
+  private static final Map<InternedType, InternedType> canonicalTypes = new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<Type> clearedTypes = new ReferenceQueue<>();
+
+  /** A weak map key which is equal to any other key whose type is equal to its own. */
+  private static final class InternedType extends WeakReference<Type> {
+    private final int hashCode;
+
+    InternedType(Type type, @Nullable ReferenceQueue<Type> queue) {
+      super(type, queue);
+      this.hashCode = type.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) return true;
+      if (!(other instanceof InternedType)) return false;
+      Type type = get();
+      return type != null && type.equals(((InternedType) other).get());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static @Nullable Type lookupCanonical(Type type) {
+    InternedType existing = canonicalTypes.get(new InternedType(type, null));
+    return existing != null ? existing.get() : null;
+  }
+
+  /**
+   * Returns the shared instance equal to {@code type}. Identical types resolved for different
+   * service methods share one instance with a precomputed hash code, so comparing them is usually
+   * an identity check.
+   */
+  static Type canonicalize(Type type) {
+    if (type instanceof Class<?> || type instanceof TypeVariable<?>) {
+      return type;
+    }
+    Type existing = lookupCanonical(type);
+    if (existing != null) {
+      return existing;
+    }
+
+    Type canonical;
+    try {
+      if (type instanceof ParameterizedType) {
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        Type ownerType = parameterizedType.getOwnerType();
+        Type[] typeArguments = parameterizedType.getActualTypeArguments();
+        for (int i = 0; i < typeArguments.length; i++) {
+          typeArguments[i] = canonicalize(typeArguments[i]);
+        }
+        canonical =
+            new ParameterizedTypeImpl(
+                ownerType != null ? canonicalize(ownerType) : null,
+                parameterizedType.getRawType(),
+                typeArguments);
+      } else if (type instanceof GenericArrayType) {
+        canonical =
+            new GenericArrayTypeImpl(
+                canonicalize(((GenericArrayType) type).getGenericComponentType()));
+      } else if (type instanceof WildcardType) {
+        WildcardType wildcardType = (WildcardType) type;
+        Type[] lowerBounds = wildcardType.getLowerBounds();
+        canonical =
+            lowerBounds.length == 1
+                ? new WildcardTypeImpl(
+                    new Type[] {Object.class}, new Type[] {canonicalize(lowerBounds[0])})
+                : new WildcardTypeImpl(
+                    new Type[] {canonicalize(wildcardType.getUpperBounds()[0])},
+                    EMPTY_TYPE_ARRAY);
+      } else {
+        return type;
+      }
+    } catch (IllegalArgumentException e) {
+      return type; // A shape our implementations do not model, such as a local class' owner.
+    }
+    return intern(canonical);
+  }
+
+  private static Type intern(Type type) {
+    for (Reference<? extends Type> cleared; (cleared = clearedTypes.poll()) != null; ) {
+      canonicalTypes.remove(cleared); // Cleared keys are only equal to themselves.
+    }
+    InternedType key = new InternedType(type, clearedTypes);
+    while (true) {
+      InternedType existing = canonicalTypes.putIfAbsent(key, key);
+      if (existing == null) {
+        return type;
+      }
+      Type existingType = existing.get();
+      if (existingType != null) {
+        return existingType;
+      }
+      canonicalTypes.remove(existing, existing); // Cleared but not yet polled. Replace it.
+    }
   }
 
   static Type getParameterUpperBound(int index, ParameterizedType type) {
@@ -334,9 +437,9 @@ final class Utils {
     }
     Type paramType = types[index];
     if (paramType instanceof WildcardType) {
-      return ((WildcardType) paramType).getUpperBounds()[0];
+      return canonicalize(((WildcardType) paramType).getUpperBounds()[0]);
     }
-    return paramType;
+    return canonicalize(paramType);
   }
 
   static Type getParameterLowerBound(int index, ParameterizedType type) {
@@ -382,6 +485,7 @@ final class Utils {
     private final @Nullable Type ownerType;
     private final Type rawType;
     private final Type[] typeArguments;
+    private final int hashCode;
 
     ParameterizedTypeImpl(@Nullable Type ownerType, Type rawType, Type... typeArguments) {
       // Require an owner type if the raw type needs it.
@@ -398,6 +502,10 @@ final class Utils {
       this.ownerType = ownerType;
       this.rawType = rawType;
       this.typeArguments = typeArguments.clone();
+      this.hashCode =
+          Arrays.hashCode(typeArguments)
+              ^ rawType.hashCode()
+              ^ (ownerType != null ? ownerType.hashCode() : 0);
     }
 
     @Override
@@ -417,14 +525,17 @@ final class Utils {
 
     @Override
     public boolean equals(Object other) {
+      if (this == other) return true;
+      if (other instanceof ParameterizedTypeImpl
+          && ((ParameterizedTypeImpl) other).hashCode != hashCode) {
+        return false; // Cheap rejection using the precomputed hash.
+      }
       return other instanceof ParameterizedType && Utils.equals(this, (ParameterizedType) other);
     }
 
     @Override
     public int hashCode() {
-      return Arrays.hashCode(typeArguments)
-          ^ rawType.hashCode()
-          ^ (ownerType != null ? ownerType.hashCode() : 0);
+      return hashCode;
     }
 
     @Override
@@ -454,7 +565,7 @@ final class Utils {
 
     @Override
     public boolean equals(Object o) {
-      return o instanceof GenericArrayType && Utils.equals(this, (GenericArrayType) o);
+      return o == this || (o instanceof GenericArrayType && Utils.equals(this, (GenericArrayType) o));
     }
 
     @Override
@@ -507,7 +618,8 @@ final class Utils {
 
     @Override
     public boolean equals(Object other) {
-      return other instanceof WildcardType && Utils.equals(this, (WildcardType) other);
+      return other == this
+          || (other instanceof WildcardType && Utils.equals(this, (WildcardType) other));
     }
 
     @Override
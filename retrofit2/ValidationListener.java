@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2;
+
+import java.lang.reflect.Method;
+import javax.annotation.Nullable;
+
+/**
+ * Receives the outcome of parsing each service method when {@linkplain
+ * Retrofit.Builder#validateEagerly(boolean) eager validation} is enabled. Install with {@link
+ * Retrofit.Builder#validationListener}.
+ *
+ * <p>When validation runs {@linkplain Retrofit.Builder#validationPool in parallel} this is called
+ * concurrently from the pool's threads.
+ */
+public interface ValidationListener {
+  /**
+   * Invoked after {@code method} was parsed, taking {@code tookNanos}. {@code failure} is the
+   * reason the method is invalid, or null if it parsed successfully.
+   */
+  void onMethodValidated(Method method, long tookNanos, @Nullable Throwable failure);
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2.http;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * How the records of a response body are separated, for methods whose body type is a {@code
+ * Stream<T>}, {@code Iterator<T>} or {@code Flow.Publisher<T>}. Each record is converted to a
+ * {@code T} on its own, as it is read. Without this annotation records are newline-delimited.
+ *
+ * <pre><code>
+ * &#64;GET("/export")
+ * &#64;Framing(Framing.Kind.LENGTH_PREFIXED)
+ * Call&lt;Stream&lt;Row&gt;&gt; export();
+ * </code></pre>
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface Framing {
+  Kind value();
+
+  enum Kind {
+    /**
+     * Records end with {@code \n} or {@code \r\n}, as in NDJSON and JSON Lines. Blank lines are
+     * skipped and the last record may omit its line ending.
+     */
+    NEWLINE_DELIMITED,
+    /** Each record follows its length as a 4-byte big-endian unsigned integer. */
+    LENGTH_PREFIXED,
+    /**
+     * Each record follows its length as a base-128 varint, as written by protobuf's {@code
+     * writeDelimitedTo}.
+     */
+    VARINT_LENGTH_PREFIXED
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2.http;
+
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Writes the response body to the {@link java.nio.file.Path} argument. The method must return
+ * {@code Call<Path>}, whose value is the argument once the whole body has been written.
+ *
+ * <pre><code>
+ * &#64;GET("/releases/{version}.zip")
+ * Call&lt;Path&gt; download(@Path("version") String version, @SaveTo Path file);
+ * </code></pre>
+ *
+ * If the file already exists and {@link #resume()} is true, only the bytes after its end are
+ * requested with a {@code Range} header and appended. The request carries an {@code If-Range}
+ * header with the validator of the interrupted response, so a server whose copy has changed sends
+ * the whole body, which replaces the file. So does a server which ignores the range. A file with no
+ * stored validator is downloaded again in full. The written size is checked against the response
+ * headers, as is a {@code Repr-Digest} or {@code Digest} if the server sends one. A download which
+ * fails midway leaves the bytes received so far so that it can be resumed.
+ */
+@Documented
+@Target(PARAMETER)
+@Retention(RUNTIME)
+public @interface SaveTo {
+  /** False to always request the whole body, replacing the file. */
+  boolean resume() default true;
+}
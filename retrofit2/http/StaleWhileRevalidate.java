@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2.http;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Return a cached body immediately for up to {@link #value() seconds} after it expires, while it
+ * is refreshed in the background. At most one refresh per cached entry is in flight at once, and
+ * calls made after it completes see the refreshed body.
+ *
+ * <pre><code>
+ * &#64;GET("/config")
+ * &#64;StaleWhileRevalidate(300)
+ * Call&lt;Config&gt; config();
+ * </code></pre>
+ *
+ * Only valid on {@link GET} methods of a {@link retrofit2.Retrofit} with a {@linkplain
+ * retrofit2.Retrofit.Builder#responseCache response cache}. Bodies which must always be
+ * revalidated, such as those marked {@code no-cache}, are never served stale.
+ */
+@Documented
+@Target(METHOD)
+@Retention(RUNTIME)
+public @interface StaleWhileRevalidate {
+  /** The number of seconds after expiry during which a cached body may be served. */
+  long value();
+}
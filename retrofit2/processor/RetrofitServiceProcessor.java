@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026 Square, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.ownbranch.retrofit2.processor;
+
+import com.ownbranch.retrofit2.http.DELETE;
+import com.ownbranch.retrofit2.http.GET;
+import com.ownbranch.retrofit2.http.HEAD;
+import com.ownbranch.retrofit2.http.HTTP;
+import com.ownbranch.retrofit2.http.OPTIONS;
+import com.ownbranch.retrofit2.http.PATCH;
+import com.ownbranch.retrofit2.http.POST;
+import com.ownbranch.retrofit2.http.PUT;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a concrete implementation for every interface which declares a method annotated with
+ * an HTTP method annotation such as {@link GET @GET} or {@link POST @POST}. {@code
+ * Retrofit.create} uses the generated class when it is present instead of creating a {@link
+ * java.lang.reflect.Proxy}.
+ *
+ * <p>For an interface {@code com.example.GitHubService} the generated class is {@code
+ * com.example.GitHubService_Retrofit}. Nested interfaces flatten their enclosing names with
+ * underscores. The interface methods are looked up once per generated class, and each instance
+ * binds them in its constructor. Each generated method forwards to its {@code BoundServiceMethod},
+ * so no reflection happens on the per-call path. Default and static interface methods are
+ * inherited as-is.
+ *
+ * <p>Enable the processor by passing {@code -processor
+ * com.ownbranch.retrofit2.processor.RetrofitServiceProcessor} to {@code javac} or by listing it in
+ * {@code META-INF/services/javax.annotation.processing.Processor} of the processor artifact.
+ */
+public final class RetrofitServiceProcessor extends AbstractProcessor {
+  private static final String GENERATED_SUFFIX = "_Retrofit";
+  private static final String RETROFIT = "com.ownbranch.retrofit2.Retrofit";
+  private static final String BOUND_SERVICE_METHOD = "com.ownbranch.retrofit2.BoundServiceMethod";
+  /** The generated nested class which holds the interface methods. */
+  private static final String METHODS_HOLDER = "ServiceMethods";
+  private static final List<String> HTTP_ANNOTATIONS =
+      Arrays.asList(
+          DELETE.class.getCanonicalName(),
+          GET.class.getCanonicalName(),
+          HEAD.class.getCanonicalName(),
+          HTTP.class.getCanonicalName(),
+          OPTIONS.class.getCanonicalName(),
+          PATCH.class.getCanonicalName(),
+          POST.class.getCanonicalName(),
+          PUT.class.getCanonicalName());
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return new LinkedHashSet<>(HTTP_ANNOTATIONS);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> services = new LinkedHashSet<>();
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        Element enclosing = element.getEnclosingElement();
+        if (element.getKind() == ElementKind.METHOD
+            && enclosing.getKind() == ElementKind.INTERFACE) {
+          services.add((TypeElement) enclosing);
+        }
+      }
+    }
+    for (TypeElement service : services) {
+      try {
+        generate(service);
+      } catch (IOException e) {
+        processingEnv
+            .getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR, "Unable to generate implementation: " + e, service);
+      }
+    }
+    return false; // Leave the HTTP annotations available to other processors.
+  }
+
+  private void generate(TypeElement service) throws IOException {
+    if (!service.getTypeParameters().isEmpty()) {
+      return; // Rejected at runtime by Retrofit.create, leave that error message in charge.
+    }
+    if (service.getModifiers().contains(Modifier.PRIVATE)) {
+      processingEnv
+          .getMessager()
+          .printMessage(
+              Diagnostic.Kind.WARNING,
+              "Skipping private interface, Retrofit will fall back to a proxy.",
+              service);
+      return;
+    }
+
+    Elements elements = processingEnv.getElementUtils();
+    Types types = processingEnv.getTypeUtils();
+    PackageElement packageElement = elements.getPackageOf(service);
+    String packageName = packageElement.getQualifiedName().toString();
+    String binaryName = elements.getBinaryName(service).toString();
+    String simpleBinaryName =
+        packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+    String generatedName = simpleBinaryName.replace('$', '_') + GENERATED_SUFFIX;
+    String serviceName = service.getQualifiedName().toString();
+
+    List<ExecutableElement> methods = new ArrayList<>();
+    for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(service))) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (modifiers.contains(Modifier.ABSTRACT)
+          && method.getEnclosingElement().getKind() == ElementKind.INTERFACE) {
+        methods.add(method);
+      }
+    }
+
+    StringBuilder out = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      out.append("package ").append(packageName).append(";\n\n");
+    }
+    out.append("@SuppressWarnings(\"unchecked\")\n")
+        .append("public final class ")
+        .append(generatedName)
+        .append(" implements ")
+        .append(serviceName)
+        .append(" {\n");
+    for (int i = 0; i < methods.size(); i++) {
+      out.append("  private final ")
+          .append(BOUND_SERVICE_METHOD)
+          .append(' ')
+          .append(fieldName(methods.get(i), i))
+          .append(";\n");
+    }
+
+    // Looked up once when first needed, rather than by every instance.
+    out.append("\n  private static final class ").append(METHODS_HOLDER).append(" {\n");
+    for (int i = 0; i < methods.size(); i++) {
+      ExecutableElement method = methods.get(i);
+      TypeElement declaringInterface = (TypeElement) method.getEnclosingElement();
+      out.append("    static final java.lang.reflect.Method ")
+          .append(fieldName(method, i))
+          .append(" =\n        ")
+          .append(RETROFIT)
+          .append(".serviceMethod(")
+          .append(declaringInterface.getQualifiedName())
+          .append(".class, \"")
+          .append(method.getSimpleName())
+          .append('"');
+      for (VariableElement parameter : method.getParameters()) {
+        out.append(", ").append(types.erasure(parameter.asType())).append(".class");
+      }
+      out.append(");\n");
+    }
+    out.append("  }\n");
+
+    out.append("\n  public ").append(generatedName).append('(').append(RETROFIT);
+    out.append(" retrofit) {\n");
+    for (int i = 0; i < methods.size(); i++) {
+      String fieldName = fieldName(methods.get(i), i);
+      out.append("    ")
+          .append(fieldName)
+          .append(" = retrofit.bindServiceMethod(")
+          .append(METHODS_HOLDER)
+          .append('.')
+          .append(fieldName)
+          .append(");\n");
+    }
+    out.append("  }\n");
+
+    for (int i = 0; i < methods.size(); i++) {
+      writeMethod(out, types, methods.get(i), fieldName(methods.get(i), i));
+    }
+    out.append("}\n");
+
+    String qualifiedGeneratedName =
+        packageName.isEmpty() ? generatedName : packageName + "." + generatedName;
+    JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedGeneratedName, service);
+    try (Writer writer = file.openWriter()) {
+      writer.write(out.toString());
+    }
+  }
+
+  private static void writeMethod(
+      StringBuilder out, Types types, ExecutableElement method, String fieldName) {
+    TypeMirror returnType = method.getReturnType();
+    boolean isVoid = returnType.getKind() == TypeKind.VOID;
+
+    out.append("\n  @Override\n  public ");
+    if (!method.getTypeParameters().isEmpty()) {
+      // Rejected at runtime by Retrofit, but the override must still compile.
+      out.append('<');
+      for (int t = 0; t < method.getTypeParameters().size(); t++) {
+        if (t > 0) out.append(", ");
+        TypeParameterElement typeParameter = method.getTypeParameters().get(t);
+        out.append(typeParameter);
+        List<? extends TypeMirror> bounds = typeParameter.getBounds();
+        if (bounds.size() == 1 && bounds.get(0).toString().equals("java.lang.Object")) {
+          continue; // The implicit bound.
+        }
+        for (int b = 0; b < bounds.size(); b++) {
+          out.append(b == 0 ? " extends " : " & ").append(bounds.get(b));
+        }
+      }
+      out.append("> ");
+    }
+    out.append(returnType).append(' ').append(method.getSimpleName()).append('(');
+    List<? extends VariableElement> parameters = method.getParameters();
+    for (int p = 0; p < parameters.size(); p++) {
+      if (p > 0) out.append(", ");
+      out.append(parameters.get(p).asType()).append(" p").append(p);
+    }
+    out.append(')');
+    List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+    for (int t = 0; t < thrownTypes.size(); t++) {
+      out.append(t == 0 ? " throws " : ", ").append(thrownTypes.get(t));
+    }
+    out.append(" {\n    ");
+    if (!isVoid) {
+      TypeMirror castType =
+          returnType.getKind().isPrimitive()
+              ? types.boxedClass(types.getPrimitiveType(returnType.getKind())).asType()
+              : returnType;
+      out.append("return (").append(castType).append(") ");
+    }
+    out.append(fieldName).append(".invoke(new Object[] {");
+    for (int p = 0; p < parameters.size(); p++) {
+      if (p > 0) out.append(", ");
+      out.append('p').append(p);
+    }
+    out.append("});\n  }\n");
+  }
+
+  private static String fieldName(ExecutableElement method, int index) {
+    return method.getSimpleName() + "$" + index;
+  }
+}